@@ -10,11 +10,17 @@
 
 package org.mule.module.google.drive;
 
+import org.mule.module.google.drive.throttle.BackoffPolicy;
+import org.mule.module.google.drive.throttle.RateLimiter;
+import org.mule.module.google.drive.throttle.ThrottlingRequestInitializer;
 import org.mule.modules.google.oauth.invalidation.InvalidationAwareCredential;
 
 import com.google.api.client.auth.oauth2.BearerToken;
 import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson.JacksonFactory;
 import com.google.api.services.drive.Drive;
 
@@ -30,12 +36,51 @@ public class DefaultGoogleDriveClientFactory implements GoogleDriveClientFactory
 	 */
 	@Override
 	public Drive newClient(String accessToken, String applicationName) {
+		return this.newClient(accessToken, applicationName, null, null);
+	}
+	
+	/**
+	 * Creates a client which requests are throttled by the given rate limiter and retried
+	 * according to the given backoff policy
+	 * 
+	 * @param accessToken the OAuth access token
+	 * @param applicationName the application name
+	 * @param rateLimiter the rate limiter for the client's requests. If <code>null</code> requests are not throttled
+	 * @param backoffPolicy the policy for retrying failed idempotent requests. If <code>null</code> requests are not retried
+	 * @return a new {@link com.google.api.services.drive.Drive} client
+	 */
+	public Drive newClient(String accessToken, String applicationName, RateLimiter rateLimiter, BackoffPolicy backoffPolicy) {
 		Credential credential = new InvalidationAwareCredential(BearerToken.authorizationHeaderAccessMethod());
 		credential.setAccessToken(accessToken);
 		
-		return new Drive.Builder(new NetHttpTransport(), new JacksonFactory(), credential)
+		JsonFactory jsonFactory = this.getJsonFactory();
+		HttpRequestInitializer initializer = rateLimiter != null || backoffPolicy != null
+				? new ThrottlingRequestInitializer(credential, jsonFactory, rateLimiter, backoffPolicy)
+				: credential;
+		
+		return new Drive.Builder(this.getTransport(), jsonFactory, initializer)
 						.setApplicationName(applicationName)
 						.build();
 	}
+	
+	/**
+	 * Returns the transport to be used by the next client.
+	 * This implementation returns a new instance on each invocation
+	 * 
+	 * @return an instance of {@link com.google.api.client.http.HttpTransport}
+	 */
+	protected HttpTransport getTransport() {
+		return new NetHttpTransport();
+	}
+	
+	/**
+	 * Returns the json factory to be used by the next client.
+	 * This implementation returns a new instance on each invocation
+	 * 
+	 * @return an instance of {@link com.google.api.client.json.JsonFactory}
+	 */
+	protected JsonFactory getJsonFactory() {
+		return new JacksonFactory();
+	}
 
 }
@@ -10,17 +10,40 @@
 
 package org.mule.module.google.drive;
 
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
 import org.mule.api.annotations.Configurable;
 import org.mule.api.annotations.Connector;
 import org.mule.api.annotations.Paged;
 import org.mule.api.annotations.Processor;
+import org.mule.api.annotations.Source;
 import org.mule.api.annotations.lifecycle.Start;
+import org.mule.api.annotations.lifecycle.Stop;
 import org.mule.api.annotations.oauth.OAuth2;
 import org.mule.api.annotations.oauth.OAuthAccessToken;
 import org.mule.api.annotations.oauth.OAuthAuthorizationParameter;
@@ -32,15 +55,50 @@ import org.mule.api.annotations.oauth.OAuthProtected;
 import org.mule.api.annotations.oauth.OAuthScope;
 import org.mule.api.annotations.param.Default;
 import org.mule.api.annotations.param.Optional;
+import org.mule.api.callback.SourceCallback;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.module.google.drive.batch.DriveBatch;
+import org.mule.module.google.drive.cache.ContentCache;
+import org.mule.module.google.drive.cache.FileMetadataCache;
+import org.mule.module.google.drive.cache.FileMetadataCache.CachedFile;
+import org.mule.module.google.drive.cache.PathCache;
+import org.mule.module.google.drive.index.IndexQuery;
+import org.mule.module.google.drive.index.MetadataIndex;
 import org.mule.module.google.drive.model.About;
 import org.mule.module.google.drive.model.App;
 import org.mule.module.google.drive.model.Change;
 import org.mule.module.google.drive.model.Comment;
 import org.mule.module.google.drive.model.CommentReply;
+import org.mule.module.google.drive.model.ConditionalDownloadResult;
+import org.mule.module.google.drive.model.DownloadResult;
 import org.mule.module.google.drive.model.File;
+import org.mule.module.google.drive.model.FileBatchResult;
 import org.mule.module.google.drive.model.Permission;
+import org.mule.module.google.drive.model.PermissionBatchResult;
 import org.mule.module.google.drive.model.Revision;
+import org.mule.module.google.drive.model.stream.FileStreamContent;
+import org.mule.module.google.drive.paging.Page;
+import org.mule.module.google.drive.paging.PageFetcher;
+import org.mule.module.google.drive.paging.PrefetchingPagingDelegate;
+import org.mule.module.google.drive.model.stream.SpooledStreamContent;
 import org.mule.module.google.drive.model.stream.StreamContent;
+import org.mule.module.google.drive.sync.ChangeBatch;
+import org.mule.module.google.drive.sync.ChangeCoalescer;
+import org.mule.module.google.drive.sync.ChangeSyncEngine;
+import org.mule.module.google.drive.sync.InMemoryWatermarkStore;
+import org.mule.module.google.drive.sync.WatermarkStore;
+import org.mule.module.google.drive.throttle.BackoffPolicy;
+import org.mule.module.google.drive.throttle.RateLimiter;
+import org.mule.module.google.drive.transfer.ChannelTransfer;
+import org.mule.module.google.drive.transfer.ChecksumMismatchException;
+import org.mule.module.google.drive.transfer.Md5VerifyingInputStream;
+import org.mule.module.google.drive.transfer.RangedDownload;
+import org.mule.module.google.drive.transfer.ResumableDownloadInputStream;
+import org.mule.module.google.drive.transfer.ResumableUpload;
+import org.mule.module.google.drive.transfer.TransferProgressListener;
+import org.mule.module.google.drive.walk.FolderTreeWalker;
+import org.mule.module.google.drive.watch.NotificationReceiver;
+import org.mule.module.google.drive.watch.WatchChannel;
 import org.mule.modules.google.AbstractGoogleOAuthConnector;
 import org.mule.modules.google.AccessType;
 import org.mule.modules.google.ForcePrompt;
@@ -49,11 +107,16 @@ import org.mule.modules.google.api.pagination.TokenBasedPagingDelegate;
 import org.mule.modules.google.oauth.invalidation.OAuthTokenExpiredException;
 import org.mule.streaming.PagingConfiguration;
 import org.mule.streaming.PagingDelegate;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
+import com.google.api.client.googleapis.services.json.AbstractGoogleJsonClientRequest;
 import com.google.api.client.http.AbstractInputStreamContent;
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.DateTime;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.Drive.Files.Copy;
+import com.google.api.services.drive.Drive.Files.Get;
 import com.google.api.services.drive.Drive.Files.Insert;
 import com.google.api.services.drive.Drive.Files.Patch;
 import com.google.api.services.drive.Drive.Files.Update;
@@ -86,6 +149,15 @@ import com.google.api.services.drive.model.FileList;
 )
 public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	
+	private static final Log logger = LogFactory.getLog(GoogleDriveConnector.class);
+	
+	private static final int NOT_MODIFIED = 304;
+	private static final int NOT_FOUND = 404;
+	private static final int DUPLICATE_PAGE_SIZE = 100;
+	private static final String DUPLICATE_FIELDS = "nextPageToken,items(id,md5Checksum)";
+	
+	private static final int WATCH_RETRY_SECONDS = 30;
+	
 	/**
      * The OAuth2 consumer key 
      */
@@ -125,12 +197,161 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     /**
      * Factory to instantiate the underlying google client.
      * Usually you don't need to override this. Most common
-     * use case of a custom value here is testing.
+     * use case of a custom value here is testing or sharing a pooled
+     * transport across all users through an instance of
+     * {@link org.mule.module.google.drive.PooledGoogleDriveClientFactory}
      */
     @Configurable
     @Optional
     private GoogleDriveClientFactory clientFactory;
     
+    /**
+     * Listener to be notified of the progress of chunked transfers.
+     * If not provided, progress is only logged at debug level
+     */
+    @Configurable
+    @Optional
+    private TransferProgressListener progressListener;
+    
+    /**
+     * Maximum amount of path components to keep in the resolve-path cache. Zero disables the cache
+     */
+    @Configurable
+    @Optional
+    @Default("1000")
+    private int pathCacheSize;
+    
+    /**
+     * How many seconds a resolved path component is valid for
+     */
+    @Configurable
+    @Optional
+    @Default("300")
+    private int pathCacheTtlSeconds;
+    
+    /**
+     * Maximum amount of files to keep in the metadata cache used by get-file-metadata. Zero disables the cache
+     */
+    @Configurable
+    @Optional
+    @Default("0")
+    private int metadataCacheSize;
+    
+    /**
+     * For how many seconds a cached file's metadata is served without revalidating it against the server
+     */
+    @Configurable
+    @Optional
+    @Default("30")
+    private int metadataCacheFreshnessSeconds;
+    
+    /**
+     * Local directory in which downloaded contents are cached by md5 checksum. If not provided,
+     * download-file doesn't use a local cache. Configurations pointing to the same directory share the cache.
+     * Only files named after an md5 checksum are managed by the cache, any other file in the directory is left untouched
+     */
+    @Configurable
+    @Optional
+    private String downloadCacheDirectory;
+    
+    /**
+     * Maximum total size in bytes of the contents kept in the download cache.
+     * Least recently used contents are evicted first
+     */
+    @Configurable
+    @Optional
+    @Default("1073741824")
+    private long downloadCacheMaxBytes;
+    
+    /**
+     * Maximum amount of requests per second issued on behalf of each user. Zero means unlimited.
+     * The actual rate is reduced when Google Drive reports exceeded quotas and grows back while it doesn't
+     */
+    @Configurable
+    @Optional
+    @Default("0")
+    private double userRequestsPerSecond;
+    
+    /**
+     * Maximum amount of requests per second issued across all users of the same consumer key. Zero means unlimited.
+     * The actual rate is reduced when Google Drive reports exceeded quotas and grows back while it doesn't
+     */
+    @Configurable
+    @Optional
+    @Default("0")
+    private double projectRequestsPerSecond;
+    
+    /**
+     * How many times to retry an idempotent request (get, list, download, delete, or a patch conditioned on an etag)
+     * which failed with a 500, 502, 503 or 504 status or an exceeded quota. Zero disables retries
+     */
+    @Configurable
+    @Optional
+    @Default("0")
+    private int maxRetries;
+    
+    /**
+     * Upper bound in milliseconds of the random delay before the first retry. It doubles on each subsequent retry
+     */
+    @Configurable
+    @Optional
+    @Default("500")
+    private long initialBackoffMillis;
+    
+    /**
+     * Maximum upper bound in milliseconds of the random delay before any retry
+     */
+    @Configurable
+    @Optional
+    @Default("32000")
+    private long maxBackoffMillis;
+    
+    /**
+     * Where sync-changes keeps the id of the last dispatched change. If not provided,
+     * an in memory store is used and syncs restart from the latest change after a restart.
+     * Use an {@link org.mule.module.google.drive.sync.ObjectStoreWatermarkStore} with a persistent object store to
+     * keep it across restarts
+     */
+    @Configurable
+    @Optional
+    private WatermarkStore watermarkStore;
+    
+    /**
+     * Local directory in which search-files keeps an index of each user's file metadata.
+     * Connectors of the same user share the index, but the directory must not be shared by several Mule instances.
+     * If not provided, all searches are performed against the API
+     */
+    @Configurable
+    @Optional
+    private String metadataIndexDirectory;
+    
+    /**
+     * How many seconds the metadata index can go without applying the latest changes before a search refreshes it
+     */
+    @Configurable
+    @Optional
+    @Default("60")
+    private int metadataIndexRefreshSeconds;
+    
+    /**
+     * Maximum amount of threads running the asynchronous processors of each user.
+     * Threads are created on demand and released after a minute of inactivity
+     */
+    @Configurable
+    @Optional
+    @Default("16")
+    private int asyncThreads;
+    
+    /**
+     * Maximum amount of asynchronous operations waiting for a thread. Once asyncThreads operations are running
+     * and this many are waiting, new ones are rejected with a RejectedExecutionException, which is handled by the
+     * calling flow's exception strategy. They never run on the calling flow thread
+     */
+    @Configurable
+    @Optional
+    @Default("1000")
+    private int asyncQueueSize;
+    
     @OAuthAccessToken
     private String accessToken;
     
@@ -139,6 +360,20 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 */
 	private Drive client;
 	
+	private PathCache pathCache;
+	
+	private FileMetadataCache metadataCache;
+	
+	private ContentCache contentCache;
+	
+	private RateLimiter rateLimiter;
+	
+	private MetadataIndex metadataIndex;
+	
+	private ExecutorService asyncExecutor;
+	
+	private String permissionId;
+	
 	/**
 	 * Initializes the connector. if no clientFactory was provided, then a default
 	 * {@link org.mule.module.google.calendar.DefaultGoogleCalendarClientFactory.DefaultGoogleCalendarClientFactor}
@@ -148,12 +383,49 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	public void init() {
 		if (this.clientFactory == null) {
 			this.clientFactory = new DefaultGoogleDriveClientFactory();
+		} else if (this.clientFactory instanceof PooledGoogleDriveClientFactory) {
+			((PooledGoogleDriveClientFactory) this.clientFactory).retain();
+		}
+		
+		if (this.watermarkStore == null) {
+			this.watermarkStore = new InMemoryWatermarkStore();
+		}
+		
+		if (this.pathCacheSize > 0) {
+			this.pathCache = new PathCache(this.pathCacheSize, this.pathCacheTtlSeconds);
+		}
+		
+		if (this.metadataCacheSize > 0) {
+			this.metadataCache = new FileMetadataCache(this.metadataCacheSize, this.metadataCacheFreshnessSeconds);
+		}
+		
+		if (!StringUtils.isBlank(this.downloadCacheDirectory)) {
+			try {
+				this.contentCache = ContentCache.forDirectory(this.downloadCacheDirectory, this.downloadCacheMaxBytes);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Invalid download cache directory " + this.downloadCacheDirectory, e);
+			}
 		}
 	}
 	
 	@OAuthPostAuthorization
 	public void postAuth() {
-		this.client = this.clientFactory.newClient(this.getAccessToken(), this.getApplicationName());
+		if (this.rateLimiter == null && (this.userRequestsPerSecond > 0 || this.projectRequestsPerSecond > 0)) {
+			this.rateLimiter = new RateLimiter(this.userRequestsPerSecond, this.consumerKey, this.projectRequestsPerSecond);
+		}
+		
+		BackoffPolicy backoffPolicy = this.maxRetries > 0 ? new BackoffPolicy(this.maxRetries, this.initialBackoffMillis, this.maxBackoffMillis) : null;
+		
+		if ((this.rateLimiter != null || backoffPolicy != null) && this.clientFactory instanceof DefaultGoogleDriveClientFactory) {
+			this.client = ((DefaultGoogleDriveClientFactory) this.clientFactory).newClient(this.getAccessToken(), this.getApplicationName(), this.rateLimiter, backoffPolicy);
+		} else {
+			if (this.rateLimiter != null || backoffPolicy != null) {
+				logger.warn("Request throttling and retries are only supported by clients created by DefaultGoogleDriveClientFactory or its subclasses. Requests will not be throttled nor retried");
+			}
+			
+			this.client = this.clientFactory.newClient(this.getAccessToken(), this.getApplicationName());
+		}
+
 		GoogleUserIdExtractor.fetchAndPublishAsFlowVar(this);
 	}
 	
@@ -164,14 +436,135 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * @param fileId the id of the file you want
 	 * @param updateViewedDate Whether to update the view date after successfully retrieving the file
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
+	 * @param useCache Whether to use the metadata cache, if one is configured. Cached files fetched within the freshness window are returned
+	 * 			without contacting the server and older ones are revalidated using their etag. The cache is not used for
+	 * 			partial responses or when updateViewedDate is true
 	 * @return an instance of {@link org.mule.module.google.drive.model.File}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public File getFileMetadata(String fileId, @Optional @Default("false") boolean updateViewedDate) throws IOException {
-		return new File(this.client.files().get(fileId).setUpdateViewedDate(updateViewedDate).execute());
+	public File getFileMetadata(
+			String fileId,
+			@Optional @Default("false") boolean updateViewedDate,
+			@Optional List<String> fields,
+			@Optional @Default("true") boolean useCache) throws IOException {
+		
+		Get command = this.client.files().get(fileId).setUpdateViewedDate(updateViewedDate).setFields(this.toFields(fields, false));
+		
+		if (!useCache || updateViewedDate || command.getFields() != null) {
+			return new File(command.execute());
+		}
+		
+		return this.getCachedFileMetadata(command, fileId, true);
+	}
+	
+	/**
+	 * Executes a request for a file's full metadata through the metadata cache, if one is configured.
+	 * Cached entries are revalidated using their etag, so unchanged files cost no response body
+	 * 
+	 * @param command the request to execute
+	 * @param fileId the id of the requested file
+	 * @param trustFresh whether entries within the freshness window can be returned without revalidating them
+	 * @return the file's metadata
+	 */
+	private File getCachedFileMetadata(Get command, String fileId, boolean trustFresh) throws IOException {
+		if (this.metadataCache == null) {
+			return new File(command.execute());
+		}
+		
+		CachedFile cached = this.metadataCache.get(fileId);
+		
+		if (cached != null) {
+			if (trustFresh && cached.isFresh()) {
+				this.metadataCache.hit();
+				return new File(cached.getFile());
+			}
+			
+			command.getRequestHeaders().setIfNoneMatch(cached.getEtag());
+		}
+		
+		try {
+			com.google.api.services.drive.model.File file = command.execute();
+			this.metadataCache.miss();
+			this.metadataCache.put(file);
+			
+			return new File(file);
+		} catch (HttpResponseException e) {
+			if (cached != null && e.getStatusCode() == NOT_MODIFIED) {
+				this.metadataCache.revalidated(cached);
+				return new File(cached.getFile());
+			}
+			
+			throw e;
+		}
+	}
+	
+	/**
+	 * Returns the statistics of the file metadata cache
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:get-metadata-cache-statistics}
+	 * 
+	 * @return a map with the amount of hits, revalidations, misses and the current size of the cache.
+	 * 			Empty if no metadata cache is configured
+	 */
+	@Processor
+	public Map<String, Long> getMetadataCacheStatistics() {
+		return this.metadataCache != null ? this.metadataCache.getStatistics() : new HashMap<String, Long>();
+	}
+	
+	/**
+	 * Resolves a path such as /Finance/2026/Q3 into the id of the file it points to. Each path component
+	 * is matched by title against the children of the previous one. Resolved components are kept in a
+	 * least recently used cache, so repeated resolutions cost no API calls. Entries expire after the configured
+	 * time to live and are invalidated when the file is modified through this connector.
+	 * If a folder holds several children with the same title, the first one returned by the API is used
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:resolve-path}
+	 * 
+	 * @param path the path to resolve, with components separated by /
+	 * @param rootId the id of the folder the path is relative to
+	 * @return the id of the file the path points to
+	 * @throws IOException in case of connection issues
+	 * @throws java.io.FileNotFoundException if a path component does not exist
+	 * @throws IllegalArgumentException if path is null
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public String resolvePath(@Optional @Default("#[payload]") String path, @Optional @Default("root") String rootId) throws IOException {
+		if (path == null) {
+			throw new IllegalArgumentException("path cannot be null");
+		}
+		
+		String currentId = rootId;
+		
+		for (String title : StringUtils.split(path, '/')) {
+			String childId = this.pathCache != null ? this.pathCache.get(currentId, title) : null;
+			
+			if (childId == null) {
+				FileList response = this.client.files().list()
+						.setQ(String.format("'%s' in parents and title = '%s' and trashed = false", currentId, this.escapeQueryLiteral(title)))
+						.setFields("items(id)")
+						.execute();
+				
+				if (response.getItems() == null || response.getItems().isEmpty()) {
+					throw new FileNotFoundException(String.format("Could not find '%s' while resolving path %s", title, path));
+				}
+				
+				childId = response.getItems().get(0).getId();
+				
+				if (this.pathCache != null) {
+					this.pathCache.put(currentId, title, childId);
+				}
+			}
+			
+			currentId = childId;
+		}
+		
+		return currentId;
 	}
 	
 	/**
@@ -179,7 +572,19 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-file}
 	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-file-parallel}
+	 * 
 	 * @param file an instance of {@link org.mule.module.google.drive.model.File}. The downloadUrl attribute cannot be blank
+	 * @param parallelism How many byte ranges to fetch concurrently. If greater than one and the file's size
+	 * 			is known, the file is downloaded over several connections and reassembled in order
+	 * @param rangeSize If parallelism is greater than one, the size in bytes of each range
+	 * @param maxResumeAttempts If greater than zero, an interrupted download is transparently resumed from the last
+	 * 			delivered byte up to this many times, and the received size and md5 checksum are verified at the end.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param verifyChecksum Whether to compute the md5 checksum of the content while it is read and compare it with the
+	 * 			file's md5Checksum. If they don't match, reading the end of the stream fails with an IOException
+	 * @param useCache Whether to use the download cache, if a downloadCacheDirectory is configured. Files with an md5
+	 * 			checksum are served from the local cache when present, and stored into it otherwise
 	 * @return an instance of {@link java.io.InputStream}
 	 * @throws IOException in case of connection issues 
 	 * @throws IllegalArgumentException if file is null or its downloadUrl property is blank
@@ -187,13 +592,160 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public InputStream downloadFile(@Optional @Default("#[payload]") File file) throws IOException {
+	public InputStream downloadFile(
+			@Optional @Default("#[payload]") File file,
+			@Optional @Default("1") int parallelism,
+			@Optional @Default("8388608") int rangeSize,
+			@Optional @Default("0") int maxResumeAttempts,
+			@Optional @Default("false") boolean verifyChecksum,
+			@Optional @Default("true") boolean useCache) throws IOException {
 	    
 		if (file == null) {
 	    	throw new IllegalArgumentException("file cannot be null");
 	    }
 		
-		return this.download(file.getDownloadUrl());
+		final String downloadUrl = file.getDownloadUrl();
+		final Long size = file.getFileSize();
+		final String md5Checksum = file.getMd5Checksum();
+		
+		if (useCache && this.contentCache != null && !StringUtils.isBlank(md5Checksum)
+				&& (size == null || size <= this.contentCache.getMaxBytes())) {
+			
+			final int p = parallelism;
+			final int r = rangeSize;
+			final int m = maxResumeAttempts;
+			
+			return this.contentCache.open(md5Checksum, new Callable<InputStream>() {
+				
+				@Override
+				public InputStream call() throws Exception {
+					return download(downloadUrl, size, md5Checksum, p, r, m, false);
+				}
+			});
+		}
+		
+		return this.download(downloadUrl, size, md5Checksum, parallelism, rangeSize, maxResumeAttempts, verifyChecksum);
+	}
+	
+	/**
+	 * Downloads the contents of a file only if it changed since a previously seen version. The file's
+	 * metadata is fetched first and compared against the given md5 checksum and/or etag. If any of them
+	 * matches, a not modified result is returned without opening the content stream.
+	 * Notice that native Google Docs have no md5 checksum, so the etag should be used for them.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-file-if-modified}
+	 * 
+	 * @param fileId the id of the file to download
+	 * @param previousMd5Checksum the md5 checksum of the version the caller already has
+	 * @param previousEtag the etag of the version the caller already has
+	 * @param parallelism How many byte ranges to fetch concurrently if the file was modified
+	 * @param rangeSize If parallelism is greater than one, the size in bytes of each range
+	 * @param maxResumeAttempts If greater than zero, an interrupted download is transparently resumed up to this many times
+	 * @return an instance of {@link org.mule.module.google.drive.model.ConditionalDownloadResult}
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public ConditionalDownloadResult downloadFileIfModified(
+			String fileId,
+			@Optional String previousMd5Checksum,
+			@Optional String previousEtag,
+			@Optional @Default("1") int parallelism,
+			@Optional @Default("8388608") int rangeSize,
+			@Optional @Default("0") int maxResumeAttempts) throws IOException {
+		
+		// a cached entry could be stale even within its freshness window, so it is always revalidated
+		File file = this.getCachedFileMetadata(this.client.files().get(fileId), fileId, false);
+		
+		boolean unchanged = (!StringUtils.isBlank(previousMd5Checksum) && previousMd5Checksum.equalsIgnoreCase(file.getMd5Checksum()))
+							|| (!StringUtils.isBlank(previousEtag) && previousEtag.equals(file.getEtag()));
+		
+		if (unchanged) {
+			return new ConditionalDownloadResult(false, file, null);
+		}
+		
+		return new ConditionalDownloadResult(true, file, this.downloadFile(file, parallelism, rangeSize, maxResumeAttempts, false, true));
+	}
+	
+	/**
+	 * Downloads the contents of a file straight into a local path. Content is written into a
+	 * {@link java.nio.channels.FileChannel} and its md5 checksum is computed along the way, so that
+	 * no intermediate streams are needed to persist it. If the download fails, the partial file is deleted.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-file-to-path}
+	 * 
+	 * @param file an instance of {@link org.mule.module.google.drive.model.File}. The downloadUrl attribute cannot be blank
+	 * @param path the local path in which the content is to be written. If the file exists, it is overwritten
+	 * @param parallelism How many byte ranges to fetch concurrently. If greater than one and the file's size
+	 * 			is known, each range is written at its own position in the target file as it arrives
+	 * @param rangeSize If parallelism is greater than one, the size in bytes of each range
+	 * @param verifyChecksum Whether to compare the computed md5 checksum with the file's md5Checksum, failing if they don't match
+	 * @return an instance of {@link org.mule.module.google.drive.model.DownloadResult} with the path, amount of bytes and md5 checksum
+	 * @throws IOException in case of connection issues
+	 * @throws IllegalArgumentException if file is null or its downloadUrl property is blank
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public DownloadResult downloadFileToPath(
+			@Optional @Default("#[payload]") File file,
+			String path,
+			@Optional @Default("1") int parallelism,
+			@Optional @Default("8388608") int rangeSize,
+			@Optional @Default("false") boolean verifyChecksum) throws IOException {
+		
+		if (file == null) {
+	    	throw new IllegalArgumentException("file cannot be null");
+	    }
+		
+		if (StringUtils.isBlank(file.getDownloadUrl())) {
+			throw new IllegalArgumentException("Download url is null or blank");
+		}
+		
+		Long size = file.getFileSize();
+		MessageDigest digest = ChannelTransfer.newMd5();
+		long bytes;
+		
+		java.io.File target = new java.io.File(path);
+		boolean completed = false;
+		
+		// ranges are written out of order, so the channel needs to be readable to digest the file afterwards
+		RandomAccessFile out = new RandomAccessFile(target, "rw");
+		try {
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+			
+			if (parallelism > 1 && size != null && size > rangeSize) {
+				bytes = new RangedDownload(this.client.getRequestFactory(), file.getDownloadUrl(), size, rangeSize, parallelism).downloadTo(channel);
+				ChannelTransfer.digest(channel, digest);
+			} else {
+				InputStream in = this.download(file.getDownloadUrl(), size, null, 1, rangeSize, 0, false);
+				try {
+					bytes = ChannelTransfer.copy(in, channel, digest);
+				} finally {
+					IOUtils.closeQuietly(in);
+				}
+			}
+			
+			channel.force(false);
+			completed = true;
+		} finally {
+			IOUtils.closeQuietly(out);
+			
+			if (!completed) {
+				target.delete();
+			}
+		}
+		
+		String md5Checksum = ChannelTransfer.toHex(digest);
+		
+		if (verifyChecksum && file.getMd5Checksum() != null && !file.getMd5Checksum().equalsIgnoreCase(md5Checksum)) {
+			target.delete();
+			throw new ChecksumMismatchException(path, file.getMd5Checksum(), md5Checksum);
+		}
+		
+		return new DownloadResult(path, bytes, md5Checksum);
 	}
 	
 	/**
@@ -201,6 +753,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:upload}
 	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:upload-resumable}
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:upload-skip-if-exists}
+	 * 
 	 * @param file an instance of {@link org.mule.module.google.drive.model.File} holding the file's metadata
 	 * @param mimeType the mimeType for the file being uploaded
 	 * @param contentStream an input stream holding the file's content
@@ -211,8 +767,21 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param timedTextLanguage The language of the timed text.
 	 * @param timedTextTrackName The timed text track name.
 	 * @param indexContent Whether to use the content as indexable text
+	 * @param resumable Whether to use the resumable upload protocol, sending the content in chunks
+	 * 			and resuming from the last acknowledged byte if a chunk fails
+	 * @param chunkSize If resumable is true, the size in bytes of each chunk. Must be a multiple of 256KB 
+	 * @param maxResumeAttempts If resumable is true, how many consecutive times to try resuming a failed chunk before giving up.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param spoolContent Whether to spool the content stream into a temporary file before uploading. This allows sending
+	 * 			the exact content length and replaying the content if the request needs to be retried
+	 * @param skipIfExists If true, the content is spooled while computing its md5 checksum and the target folder is searched for
+	 * 			a file with the same title and checksum. If one exists, no content is transferred and that file is returned instead.
+	 * 			Requires the file's metadata to have a title
+	 * @param verifyChecksum Whether to compute the md5 checksum of the content while it is sent and compare it with the
+	 * 			md5Checksum of the uploaded file, failing if they don't match. Files converted to Google Docs formats are not verified
 	 * @return an instance of {@link org.mule.module.google.drive.model.File} representing the newly created file
 	 * @throws IOException in case of connection issues
+	 * @throws IllegalArgumentException if skipIfExists is true and the file has no title
 	 */
 	@Processor
     @OAuthProtected
@@ -227,36 +796,262 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 			@Optional @Default("false") boolean pinned,
 			@Optional String timedTextLanguage,
 			@Optional String timedTextTrackName,
-			@Optional @Default("false") boolean indexContent) throws IOException {
+			@Optional @Default("false") boolean indexContent,
+			@Optional @Default("false") boolean resumable,
+			@Optional @Default("10485760") int chunkSize,
+			@Optional @Default("3") int maxResumeAttempts,
+			@Optional @Default("false") boolean spoolContent,
+			@Optional @Default("false") boolean skipIfExists,
+			@Optional @Default("false") boolean verifyChecksum) throws IOException {
 		
-		AbstractInputStreamContent mediaContent = new StreamContent(mimeType, contentStream);
-	    Insert command = this.client.files().insert(file.wrapped(), mediaContent)
-	    		.setOcr(ocr)
-	    		.setOcrLanguage(ocrLanguage)
-	    		.setConvert(convert)
-	    		.setUseContentAsIndexableText(indexContent)
-	    		.setPinned(pinned);
-    	
-    	if (timedTextLanguage != null) {
-    		command.setTimedTextLanguage(timedTextLanguage);
-    	}
-    	
-    	if (timedTextTrackName != null) {
-    		command.setTimedTextTrackName(timedTextTrackName);
-    	}
-    	
-		return new File(command.execute());
+		if (skipIfExists) {
+			this.checkDuplicateCriteria(file);
+		}
+		
+		Md5VerifyingInputStream digestingStream = null;
+		AbstractInputStreamContent mediaContent;
+		
+		if (spoolContent || skipIfExists) {
+			mediaContent = new SpooledStreamContent(mimeType, contentStream);
+		} else if (verifyChecksum) {
+			digestingStream = new Md5VerifyingInputStream(contentStream, "upload content", null);
+			mediaContent = new StreamContent(mimeType, digestingStream);
+		} else {
+			mediaContent = new StreamContent(mimeType, contentStream);
+		}
+		
+		try {
+			if (skipIfExists) {
+				File existing = this.findDuplicate(file, ((SpooledStreamContent) mediaContent).getMd5Checksum());
+				
+				if (existing != null) {
+					return existing;
+				}
+			}
+			
+			File uploaded = this.doUpload(file, mediaContent, ocr, ocrLanguage, convert, pinned, timedTextLanguage,
+					timedTextTrackName, indexContent, resumable, chunkSize, maxResumeAttempts);
+			
+			if (verifyChecksum) {
+				this.verifyUpload(uploaded, digestingStream != null
+						? digestingStream.getMd5Checksum()
+						: ((SpooledStreamContent) mediaContent).getMd5Checksum());
+			}
+			
+			return uploaded;
+		} finally {
+			if (mediaContent instanceof SpooledStreamContent) {
+				((SpooledStreamContent) mediaContent).dispose();
+			}
+		}
 	}
 	
 	/**
-	 * Makes a partial update to the File's metadata. You provide an instance of
-	 * {@link org.mule.module.google.drive.model.File} with a valid id and new
-	 * values for certain properties. This processor will update those properties only.
-	 * This operation is ideal for simple operations such as rename in which you don't want/need
-	 * to get the whole object. You can just make a File with id and title, leaving the rest of the
-	 * properties in null.
+	 * Uploads a file which content is already on the local file system. Since the content is read from the file,
+	 * its exact length is sent and it can be replayed if a request needs to be retried. When using the resumable
+	 * protocol each chunk is memory mapped from its position in the file instead of being buffered
 	 * 
-	 * Notice that this processor has no way of guessing which properties to include in the patch.
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:upload-from-path}
+	 * 
+	 * @param file an instance of {@link org.mule.module.google.drive.model.File} holding the file's metadata
+	 * @param mimeType the mimeType for the file being uploaded
+	 * @param path the path of the local file holding the content
+	 * @param ocr Whether to attempt OCR on .jpg, .png, .gif, or .pdf uploads.
+	 * @param ocrLanguage If ocr is true, hints at the language to use. Valid values are ISO 639-1 codes.
+	 * @param convert Whether to convert this file to the corresponding Google Docs format
+	 * @param pinned Whether to pin the head revision of the uploaded file.
+	 * @param timedTextLanguage The language of the timed text.
+	 * @param timedTextTrackName The timed text track name.
+	 * @param indexContent Whether to use the content as indexable text
+	 * @param resumable Whether to use the resumable upload protocol, sending the content in chunks
+	 * 			and resuming from the last acknowledged byte if a chunk fails
+	 * @param chunkSize If resumable is true, the size in bytes of each chunk. Must be a multiple of 256KB 
+	 * @param maxResumeAttempts If resumable is true, how many consecutive times to try resuming a failed chunk before giving up.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param skipIfExists If true, the md5 checksum of the local file is computed and the target folder is searched for a file with
+	 * 			the same title and checksum. If one exists, no content is transferred and that file is returned instead.
+	 * 			Requires the file's metadata to have a title
+	 * @param verifyChecksum Whether to compare the md5 checksum of the local file with the md5Checksum of the uploaded file,
+	 * 			failing if they don't match. Files converted to Google Docs formats are not verified
+	 * @return an instance of {@link org.mule.module.google.drive.model.File} representing the newly created file
+	 * @throws IOException in case of connection issues
+	 * @throws IllegalArgumentException if path does not point to an existing file, or if skipIfExists is true and the file has no title
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public File uploadFromPath(
+			@Optional @Default("#[payload]") File file,
+			String mimeType,
+			String path,
+			@Optional @Default("false") boolean ocr,
+			@Optional @Default("en") String ocrLanguage,
+			@Optional @Default("false") boolean convert,
+			@Optional @Default("false") boolean pinned,
+			@Optional String timedTextLanguage,
+			@Optional String timedTextTrackName,
+			@Optional @Default("false") boolean indexContent,
+			@Optional @Default("false") boolean resumable,
+			@Optional @Default("10485760") int chunkSize,
+			@Optional @Default("3") int maxResumeAttempts,
+			@Optional @Default("false") boolean skipIfExists,
+			@Optional @Default("false") boolean verifyChecksum) throws IOException {
+		
+		java.io.File source = new java.io.File(path);
+		if (!source.isFile()) {
+			throw new IllegalArgumentException(path + " is not an existing file");
+		}
+		
+		if (skipIfExists) {
+			this.checkDuplicateCriteria(file);
+		}
+		
+		String md5Checksum = null;
+		
+		if (skipIfExists || verifyChecksum) {
+			MessageDigest digest = ChannelTransfer.newMd5();
+			FileInputStream in = new FileInputStream(source);
+			try {
+				ChannelTransfer.digest(in.getChannel(), digest);
+			} finally {
+				IOUtils.closeQuietly(in);
+			}
+			
+			md5Checksum = ChannelTransfer.toHex(digest);
+		}
+		
+		if (skipIfExists) {
+			File existing = this.findDuplicate(file, md5Checksum);
+			
+			if (existing != null) {
+				return existing;
+			}
+		}
+		
+		File uploaded = this.doUpload(file, new FileStreamContent(mimeType, source), ocr, ocrLanguage, convert, pinned,
+				timedTextLanguage, timedTextTrackName, indexContent, resumable, chunkSize, maxResumeAttempts);
+		
+		return verifyChecksum ? this.verifyUpload(uploaded, md5Checksum) : uploaded;
+	}
+	
+	/**
+	 * Duplicates are looked up by title, so uploads which skip existing files must provide one
+	 */
+	private void checkDuplicateCriteria(File file) {
+		if (file == null || StringUtils.isBlank(file.getTitle())) {
+			throw new IllegalArgumentException("skipIfExists requires the file's metadata to have a title");
+		}
+	}
+	
+	/**
+	 * Looks in the file's target folder for a non trashed file with the same title and md5 checksum. The query language
+	 * cannot filter by checksum, so all the files with that title are paged through fetching only their ids and checksums,
+	 * and the full metadata is only requested for a match
+	 * 
+	 * @param file the metadata of the file about to be uploaded
+	 * @param md5Checksum the checksum of the content about to be uploaded
+	 * @return the existing file or <code>null</code> if none was found
+	 */
+	private File findDuplicate(File file, String md5Checksum) throws IOException {
+		List<com.google.api.services.drive.model.ParentReference> parents = file.wrapped().getParents();
+		String parentId = parents != null && !parents.isEmpty() ? parents.get(0).getId() : "root";
+		String query = String.format("'%s' in parents and title = '%s' and trashed = false", parentId, this.escapeQueryLiteral(file.getTitle()));
+		String pageToken = null;
+		
+		do {
+			FileList response = this.client.files().list()
+					.setQ(query)
+					.setMaxResults(DUPLICATE_PAGE_SIZE)
+					.setFields(DUPLICATE_FIELDS)
+					.setPageToken(pageToken)
+					.execute();
+			
+			if (response.getItems() != null) {
+				for (com.google.api.services.drive.model.File candidate : response.getItems()) {
+					if (md5Checksum.equalsIgnoreCase(candidate.getMd5Checksum())) {
+						return new File(this.client.files().get(candidate.getId()).execute());
+					}
+				}
+			}
+			
+			pageToken = response.getNextPageToken();
+		} while (pageToken != null);
+		
+		return null;
+	}
+	
+	private File doUpload(
+			File file,
+			AbstractInputStreamContent mediaContent,
+			boolean ocr,
+			String ocrLanguage,
+			boolean convert,
+			boolean pinned,
+			String timedTextLanguage,
+			String timedTextTrackName,
+			boolean indexContent,
+			boolean resumable,
+			int chunkSize,
+			int maxResumeAttempts) throws IOException {
+		
+		if (resumable) {
+			Map<String, Object> parameters = new HashMap<String, Object>();
+			parameters.put("ocr", ocr);
+			parameters.put("ocrLanguage", ocrLanguage);
+			parameters.put("convert", convert);
+			parameters.put("useContentAsIndexableText", indexContent);
+			parameters.put("pinned", pinned);
+			
+			if (timedTextLanguage != null) {
+				parameters.put("timedTextLanguage", timedTextLanguage);
+			}
+			
+			if (timedTextTrackName != null) {
+				parameters.put("timedTextTrackName", timedTextTrackName);
+			}
+			
+			ResumableUpload upload = new ResumableUpload(this.client, chunkSize, new BackoffPolicy(maxResumeAttempts, this.initialBackoffMillis, this.maxBackoffMillis));
+			upload.setProgressListener(this.progressListener);
+			
+			if (mediaContent instanceof FileStreamContent) {
+				return new File(upload.upload(file.wrapped(), (FileStreamContent) mediaContent, parameters));
+			}
+			
+			InputStream in = mediaContent.getInputStream();
+			try {
+				return new File(upload.upload(file.wrapped(), mediaContent.getType(), in, mediaContent.getLength(), parameters));
+			} finally {
+				IOUtils.closeQuietly(in);
+			}
+		}
+		
+	    Insert command = this.client.files().insert(file.wrapped(), mediaContent)
+	    		.setOcr(ocr)
+	    		.setOcrLanguage(ocrLanguage)
+	    		.setConvert(convert)
+	    		.setUseContentAsIndexableText(indexContent)
+	    		.setPinned(pinned);
+    	
+    	if (timedTextLanguage != null) {
+    		command.setTimedTextLanguage(timedTextLanguage);
+    	}
+    	
+    	if (timedTextTrackName != null) {
+    		command.setTimedTextTrackName(timedTextTrackName);
+    	}
+    	
+		return new File(command.execute());
+	}
+	
+	/**
+	 * Makes a partial update to the File's metadata. You provide an instance of
+	 * {@link org.mule.module.google.drive.model.File} with a valid id and new
+	 * values for certain properties. This processor will update those properties only.
+	 * This operation is ideal for simple operations such as rename in which you don't want/need
+	 * to get the whole object. You can just make a File with id and title, leaving the rest of the
+	 * properties in null.
+	 * 
+	 * Notice that this processor has no way of guessing which properties to include in the patch.
 	 * You need to provide a consistent list of fields
 	 * 
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:patch-file}
@@ -276,6 +1071,8 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param indexContent Whether to use the content as indexable text
 	 * @param updateViewedDate Whether to update the view date after successfully updating the file
 	 * @param setModifiedDate Whether to set the modified date with the supplied modified date
+	 * @param ifMatchEtag Whether to apply the patch only if the file's etag still matches the one of the given file.
+	 * 			If it doesn't, the operation fails with status 412. Conditional patches can be safely retried
 	 * @return an instance of {@link org.mule.module.google.drive.model.File} representing the file's new state
 	 * @throws IOException in case of connection issues
 	 */
@@ -294,7 +1091,8 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 			@Optional @Default("false") boolean newRevision,
 			@Optional @Default("false") boolean indexContent,
 			@Optional @Default("false") boolean updateViewedDate,
-			@Optional @Default("false") boolean setModifiedDate) throws IOException {
+			@Optional @Default("false") boolean setModifiedDate,
+			@Optional @Default("false") boolean ifMatchEtag) throws IOException {
 		
 		Patch command = this.client.files().patch(file.getId(), file.wrapped())
 				.setOcr(ocr)
@@ -313,8 +1111,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     		command.setTimedTextTrackName(timedTextTrackName);
     	}
     	
+    	if (ifMatchEtag && file.getEtag() != null) {
+    		command.getRequestHeaders().setIfMatch(file.getEtag());
+    	}
+    	
     	command.setFields(this.toString(fields));
-    	return new File(command.execute());
+    	File patched = new File(command.execute());
+    	this.fileChanged(file.getId());
+    	
+    	return patched;
 	}
 	
 	/**
@@ -374,9 +1179,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     		command.setTimedTextTrackName(timedTextTrackName);
     	}
     	
-    	return new File(command.execute());
+    	File updated = new File(command.execute());
+    	this.fileChanged(file.getId());
     	
-		
+    	return updated;
 	}
 	
 	/**
@@ -392,6 +1198,7 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public void deleteFile(String fileId) throws IOException {
 		this.client.files().delete(fileId).execute();
+		this.fileChanged(fileId);
 	}
 	
 	/**
@@ -399,8 +1206,14 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-files}
 	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-files-with-fields}
+	 * 
 	 * @param maxResults The maximum number of replies to include in the response, used for paging. 
 	 * @param query Query string for searching files.
+	 * @param fields Optional list of fields to include in each page (partial response), for example items(id,md5Checksum).
+	 * 			If not provided, full resources are returned
+	 * @param prefetchDepth If greater than zero, the next pages are requested in the background while the current one is being
+	 * 			consumed, holding up to this many pages in memory
 	 * @param pagingConfiguration the paging configuration object
      * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.File}
 	 * @throws IOException in case of connection issues
@@ -412,23 +1225,190 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	public PagingDelegate<File> listFiles(
 			final @Optional @Default("100") int maxResults,
 			final @Optional String query,
+			final @Optional List<String> fields,
+			final @Optional @Default("0") int prefetchDepth,
     		final PagingConfiguration pagingConfiguration) throws IOException {
 		
-		return new TokenBasedPagingDelegate<File>() {
+		final String projection = this.toFields(fields, true);
+		
+		return this.paginate(new PageFetcher<File>() {
     		
     		@Override
-    		public List<File> doGetPage() throws IOException {
+    		public Page<File> fetch(String pageToken) throws IOException {
     			FileList response = client.files().list()
 						.setMaxResults(maxResults)
-						.setPageToken(this.getPageToken())
+						.setPageToken(pageToken)
 						.setQ(query)
+						.setFields(projection)
 						.execute();
-    			
-    			this.setPageToken(response.getNextPageToken());
 	
-    			return File.valueOf(response.getItems(), File.class);
+    			return new Page<File>(File.valueOf(response.getItems(), File.class), response.getNextPageToken());
     		}
-		};
+		}, prefetchDepth);
+	}
+	
+	/**
+	 * Looks up files by id, parent, title prefix, mime type and/or modified date. All the provided criteria must match
+	 * and trashed files are never returned.
+	 * 
+	 * If a metadataIndexDirectory is configured, the lookup is answered from a local index of the user's files, which
+	 * is built on first use with a full listing and then kept current by applying the change feed whenever it's older
+	 * than metadataIndexRefreshSeconds. Files returned by the index only carry the attributes the index keeps: id, etag,
+	 * title, mime type, modified date, size, checksum and parents. Lookups the index cannot answer (those with a query or
+	 * without criteria) and all lookups when no index is configured are performed against the API instead.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:search-files}
+	 * 
+	 * @param id the id of the file
+	 * @param parentId the id of a folder the files must be in
+	 * @param titlePrefix a case insensitive prefix of the files' titles
+	 * @param mimeType the files' mime type
+	 * @param modifiedAfter files must have been modified after this date
+	 * @param modifiedBefore files must have been modified before this date
+	 * @param query an additional query in the Drive search syntax. Queries are always sent to the API and can't be combined with an id
+	 * @param maxResults the maximum amount of files to return
+	 * @param useIndex Whether to use the local index if one is configured
+	 * @return a list with instances of {@link org.mule.module.google.drive.model.File}
+	 * @throws IOException in case of connection issues
+	 * @throws IllegalArgumentException if both an id and a query are provided
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public List<File> searchFiles(
+			@Optional String id,
+			@Optional String parentId,
+			@Optional String titlePrefix,
+			@Optional String mimeType,
+			@Optional Date modifiedAfter,
+			@Optional Date modifiedBefore,
+			@Optional String query,
+			@Optional @Default("100") int maxResults,
+			@Optional @Default("true") boolean useIndex) throws IOException {
+		
+		if (id != null && query != null) {
+			throw new IllegalArgumentException("An id cannot be combined with a query");
+		}
+		
+		IndexQuery criteria = new IndexQuery();
+		criteria.setId(id);
+		criteria.setParentId(parentId);
+		criteria.setTitlePrefix(titlePrefix);
+		criteria.setMimeType(mimeType);
+		criteria.setModifiedAfter(modifiedAfter);
+		criteria.setModifiedBefore(modifiedBefore);
+		
+		if (useIndex && !StringUtils.isBlank(this.metadataIndexDirectory) && query == null && criteria.hasCriteria()) {
+			MetadataIndex index = this.getMetadataIndex();
+			index.refresh(this.client, this.metadataIndexRefreshSeconds * 1000L);
+			
+			return File.valueOf(index.query(criteria, maxResults), File.class);
+		}
+		
+		if (id != null) {
+			List<com.google.api.services.drive.model.File> files = new ArrayList<com.google.api.services.drive.model.File>();
+			com.google.api.services.drive.model.File file;
+			
+			try {
+				file = this.client.files().get(id).execute();
+			} catch (HttpResponseException e) {
+				if (e.getStatusCode() == NOT_FOUND) {
+					return File.valueOf(files, File.class);
+				}
+				
+				throw e;
+			}
+			
+			boolean trashed = file.getLabels() != null && Boolean.TRUE.equals(file.getLabels().getTrashed());
+			
+			if (!trashed && criteria.matches(file) && maxResults > 0) {
+				files.add(file);
+			}
+			
+			return File.valueOf(files, File.class);
+		}
+		
+		StringBuilder q = new StringBuilder("trashed = false");
+		
+		if (parentId != null) {
+			q.append(String.format(" and '%s' in parents", this.escapeQueryLiteral(parentId)));
+		}
+		
+		if (titlePrefix != null) {
+			q.append(String.format(" and title contains '%s'", this.escapeQueryLiteral(titlePrefix)));
+		}
+		
+		if (mimeType != null) {
+			q.append(String.format(" and mimeType = '%s'", this.escapeQueryLiteral(mimeType)));
+		}
+		
+		if (modifiedAfter != null) {
+			q.append(String.format(" and modifiedDate > '%s'", new DateTime(modifiedAfter).toStringRfc3339()));
+		}
+		
+		if (modifiedBefore != null) {
+			q.append(String.format(" and modifiedDate < '%s'", new DateTime(modifiedBefore).toStringRfc3339()));
+		}
+		
+		if (query != null) {
+			q.append(" and (").append(query).append(")");
+		}
+		
+		List<com.google.api.services.drive.model.File> files = new ArrayList<com.google.api.services.drive.model.File>();
+		String token = null;
+		
+		do {
+			FileList response = this.client.files().list()
+					.setQ(q.toString())
+					.setMaxResults(maxResults)
+					.setPageToken(token)
+					.execute();
+			
+			if (response.getItems() != null) {
+				for (com.google.api.services.drive.model.File file : response.getItems()) {
+					// title contains does prefix matching on the title's words, so the prefix of the whole title has to be checked
+					if (titlePrefix == null || (file.getTitle() != null && file.getTitle().toLowerCase().startsWith(titlePrefix.toLowerCase()))) {
+						files.add(file);
+					}
+				}
+			}
+			
+			token = response.getNextPageToken();
+		} while (token != null && files.size() < maxResults);
+		
+		return File.valueOf(files.size() > maxResults ? files.subList(0, maxResults) : files, File.class);
+	}
+	
+	/**
+	 * Walks a folder hierarchy returning all the files found on it. The children of several folders are listed
+	 * concurrently on a bounded pool and discovered files are returned as they are found, in no particular order.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:walk-folder-tree}
+	 * 
+	 * @param folderId the id of the folder to start from
+	 * @param maxDepth how many levels to descend. Children of the starting folder are on level 1. A negative value means no limit
+	 * @param mimeTypes if provided, only files of these mime types are returned. Folders are traversed regardless of this filter
+	 * @param parallelism how many folders to list concurrently
+	 * @param fields Optional list of fields to include for each file (partial response), for example items(id,title,md5Checksum).
+	 * 			Id and mimeType are always included
+	 * @param pagingConfiguration the paging configuration object
+	 * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.File}
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	@Paged
+	public PagingDelegate<File> walkFolderTree(
+			@Optional @Default("root") String folderId,
+			@Optional @Default("-1") int maxDepth,
+			@Optional List<String> mimeTypes,
+			@Optional @Default("8") int parallelism,
+			@Optional List<String> fields,
+			PagingConfiguration pagingConfiguration) throws IOException {
+		
+		return new FolderTreeWalker(this.client, folderId, maxDepth, mimeTypes, parallelism,
+				pagingConfiguration.getFetchSize(), fields != null && !fields.isEmpty() ? this.toString(fields) : null);
 	}
 	
 	/**
@@ -493,7 +1473,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public File touch(String fileId) throws IOException {
-		return new File(this.client.files().touch(fileId).execute());
+		File file = new File(this.client.files().touch(fileId).execute());
+		this.fileChanged(fileId);
+		
+		return file;
 	}
 	
 	/**
@@ -509,7 +1492,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public File trashFile(String fileId) throws IOException {
-		return new File(this.client.files().trash(fileId).execute());
+		File file = new File(this.client.files().trash(fileId).execute());
+		this.fileChanged(fileId);
+		
+		return file;
 	}
 	
 	/**
@@ -525,149 +1511,518 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public File restoreFile(String fileId) throws IOException {
-		return new File(this.client.files().untrash(fileId).execute());
+		File file = new File(this.client.files().untrash(fileId).execute());
+		this.fileChanged(fileId);
+		
+		return file;
 	}
 	
 	/**
-	 * Gets the information about the current user along with Drive API settings
+	 * Deletes several files using batch requests, grouping up to 100 deletions on each http round trip.
+	 * A failure on one file does not stop the others, its details are reported in the file's result instead
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:about}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:batch-delete-files}
 	 * 
-	 * @return an instance of {@link org.mule.module.google.drive.model.About}
+	 * @param fileIds the ids of the files you want to delete
+	 * @return a list of {@link org.mule.module.google.drive.model.FileBatchResult} in the same order as the ids
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public About about() throws IOException {
-		return new About(this.client.about().get().execute());
+	public List<FileBatchResult> batchDeleteFiles(@Optional @Default("#[payload]") List<String> fileIds) throws IOException {
+		return this.filesChanged(new FileIdBatch<Void>() {
+			
+			@Override
+			protected AbstractGoogleJsonClientRequest<Void> newRequest(String fileId) throws IOException {
+				return client.files().delete(fileId);
+			}
+		}.execute(this.client, this.rateLimiter, fileIds));
 	}
 	
 	/**
-	 * Returns a paginated {@link Iterator} with the {@link org.mule.module.google.drive.model.Change} objects for a user
+	 * Moves several files to the trash using batch requests, grouping up to 100 files on each http round trip.
+	 * A failure on one file does not stop the others, its details are reported in the file's result instead
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-changes}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:batch-trash-files}
 	 * 
-	 * @param includeDeleted Whether to include deleted items
-	 * @param includeSubscribed Whether to include shared files and public files the user has opened. When set to false, the list will include owned files plus any shared or public files the user has explictly added to a folder in Drive
-	 * @param maxResults Maximum number of changes to return.
-	 * @param startChangeId Change ID to start listing changes from.
-	 * @param pagingConfiguration the paging configuration object
-     * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.File}
+	 * @param fileIds the ids of the files you want trashed
+	 * @return a list of {@link org.mule.module.google.drive.model.FileBatchResult} in the same order as the ids
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	@Paged
-	public PagingDelegate<Change> listChanges(
-			final @Optional @Default("true") boolean includeDeleted,
-			final @Optional @Default("true") boolean includeSubscribed,
-			final @Optional @Default("100") int maxResults,
-			final @Optional Long startChangeId,
-			final PagingConfiguration pagingConfiguration
-			) throws IOException {
-		
-		return new TokenBasedPagingDelegate<Change>() {
+	public List<FileBatchResult> batchTrashFiles(@Optional @Default("#[payload]") List<String> fileIds) throws IOException {
+		return this.filesChanged(new FileIdBatch<com.google.api.services.drive.model.File>() {
 			
 			@Override
-			protected List<Change> doGetPage() throws IOException {
-				ChangeList response = client.changes().list()
-						.setIncludeDeleted(includeDeleted)
-						.setIncludeSubscribed(includeSubscribed)
-						.setMaxResults(maxResults)
-						.setPageToken(this.getPageToken())
-						.setStartChangeId(startChangeId)
-						.execute();
-				
-				this.setPageToken(response.getNextPageToken());
-				return Change.valueOf(response.getItems(), Change.class);
+			protected AbstractGoogleJsonClientRequest<com.google.api.services.drive.model.File> newRequest(String fileId) throws IOException {
+				return client.files().trash(fileId);
 			}
-		};
+		}.execute(this.client, this.rateLimiter, fileIds));
 	}
 	
 	/**
-	 * Returns a particular change by its id
+	 * Sets the updated time of several files to the current server time using batch requests,
+	 * grouping up to 100 files on each http round trip.
+	 * A failure on one file does not stop the others, its details are reported in the file's result instead
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:get-change}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:batch-touch-files}
 	 * 
-	 * @param changeId the id of the change you want
-	 * @return an instance of {@link org.mule.module.google.drive.model.Change}
+	 * @param fileIds the ids of the files you want touched
+	 * @return a list of {@link org.mule.module.google.drive.model.FileBatchResult} in the same order as the ids
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public Change getChange(String changeId) throws IOException {
-		return new Change(this.client.changes().get(changeId).execute());
+	public List<FileBatchResult> batchTouchFiles(@Optional @Default("#[payload]") List<String> fileIds) throws IOException {
+		return this.filesChanged(new FileIdBatch<com.google.api.services.drive.model.File>() {
+			
+			@Override
+			protected AbstractGoogleJsonClientRequest<com.google.api.services.drive.model.File> newRequest(String fileId) throws IOException {
+				return client.files().touch(fileId);
+			}
+		}.execute(this.client, this.rateLimiter, fileIds));
 	}
 	
 	/**
-	 * Inserts a file into a folder.
+	 * Makes a partial update to several files using batch requests, grouping up to 100 files on each http round trip.
+	 * Each {@link org.mule.module.google.drive.model.File} needs a valid id and the new values for the patched fields.
+	 * A failure on one file does not stop the others, its details are reported in the file's result instead
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:insert-file-in-folder}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:batch-patch-files}
 	 * 
-	 * @param fileId  the id of the file you want to insert
-	 * @param folderId the id of the folder you want to insert the file into
+	 * @param files the files holding the new values
+	 * @param fields the list of fields to include in the patch operation
+	 * @return a list of {@link org.mule.module.google.drive.model.FileBatchResult} in the same order as the files
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public void insertFileInFolder(String fileId, @Optional @Default("root") String folderId) throws IOException {
-		ChildReference child = new ChildReference();
-		child.setId(fileId);
-		this.client.children().insert(folderId, child).execute();
+	public List<FileBatchResult> batchPatchFiles(@Optional @Default("#[payload]") List<File> files, List<String> fields) throws IOException {
+		final String selector = this.toString(fields);
+		
+		return this.filesChanged(new DriveBatch<File, com.google.api.services.drive.model.File, FileBatchResult>() {
+			
+			@Override
+			protected AbstractGoogleJsonClientRequest<com.google.api.services.drive.model.File> newRequest(File file) throws IOException {
+				return client.files().patch(file.getId(), file.wrapped()).setFields(selector);
+			}
+			
+			@Override
+			protected FileBatchResult newResult(File file) {
+				return new FileBatchResult(file.getId());
+			}
+			
+			@Override
+			protected void onSuccess(FileBatchResult result, com.google.api.services.drive.model.File response) {
+				result.setFile(new File(response));
+			}
+		}.execute(this.client, this.rateLimiter, files));
 	}
 	
 	/**
-	 * Removes a file from a folder.
+	 * Gets the information about the current user along with Drive API settings
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:delete-file-from-folder}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:about}
 	 * 
-	 * @param fileId the id of the file
-	 * @param folderId The ID of the folder.
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
+	 * @return an instance of {@link org.mule.module.google.drive.model.About}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public void deleteFileFromFolder(String fileId, @Optional @Default("root") String folderId) throws IOException {
-		ChildReference child = new ChildReference();
-		child.setId(fileId);
-		this.client.children().delete(folderId, fileId).execute();
+	public About about(@Optional List<String> fields) throws IOException {
+		return new About(this.client.about().get().setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
-	 * Lists a file's permissions
+	 * Returns a paginated {@link Iterator} with the {@link org.mule.module.google.drive.model.Change} objects for a user
 	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-permissions}
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-changes}
 	 * 
-	 * @param fileId the id of the file which permissions you want
-	 * @return a list with instances of {@link org.mule.module.google.drive.model.Permission}
+	 * @param includeDeleted Whether to include deleted items
+	 * @param includeSubscribed Whether to include shared files and public files the user has opened. When set to false, the list will include owned files plus any shared or public files the user has explictly added to a folder in Drive
+	 * @param maxResults Maximum number of changes to return.
+	 * @param startChangeId Change ID to start listing changes from.
+	 * @param fields Optional list of fields to include in each page (partial response), for example items(id,md5Checksum).
+	 * 			If not provided, full resources are returned
+	 * @param prefetchDepth If greater than zero, the next pages are requested in the background while the current one is being
+	 * 			consumed, holding up to this many pages in memory
+	 * @param pagingConfiguration the paging configuration object
+     * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.File}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public List<Permission> listPermissions(String fileId) throws IOException {
-		return Permission.valueOf(this.client.permissions().list(fileId).execute().getItems(), Permission.class);
-	}
-	
-	/**
-	 * Deletes a permission from a file
-	 * 
-	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:delete-permission}
-	 * 
-	 * @param fileId the id of the file owning the permission to be deleted
-	 * @param permissionId the id of the permission to be deleted
-	 * @throws IOException in case of connection issues
-	 */
-	@Processor
+	@Paged
+	public PagingDelegate<Change> listChanges(
+			final @Optional @Default("true") boolean includeDeleted,
+			final @Optional @Default("true") boolean includeSubscribed,
+			final @Optional @Default("100") int maxResults,
+			final @Optional Long startChangeId,
+			final @Optional List<String> fields,
+			final @Optional @Default("0") int prefetchDepth,
+			final PagingConfiguration pagingConfiguration
+			) throws IOException {
+		
+		final String projection = this.toFields(fields, true);
+		
+		return this.paginate(new PageFetcher<Change>() {
+			
+			@Override
+			public Page<Change> fetch(String pageToken) throws IOException {
+				ChangeList response = client.changes().list()
+						.setIncludeDeleted(includeDeleted)
+						.setIncludeSubscribed(includeSubscribed)
+						.setMaxResults(maxResults)
+						.setPageToken(pageToken)
+						.setStartChangeId(startChangeId)
+						.setFields(projection)
+						.execute();
+				
+				return new Page<Change>(Change.valueOf(response.getItems(), Change.class), response.getNextPageToken());
+			}
+		}, prefetchDepth);
+	}
+	
+	/**
+	 * Message source which incrementally reads the user's change feed and dispatches each new change,
+	 * in order, as a {@link org.mule.module.google.drive.model.Change}. The id of the last dispatched change
+	 * is kept in the configured watermarkStore, so each poll only fetches the changes that happened after it.
+	 * On the first run the user's largest change id is stored and only later changes are dispatched.
+	 * 
+	 * The watermark is only advanced after all the changes of a poll were dispatched successfully. If the
+	 * flow fails, the same changes are dispatched again on the next poll. A change which keeps failing is skipped
+	 * and logged as an error after maxDeliveryAttempts, so it doesn't block the changes after it.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:sync-changes}
+	 * 
+	 * @param callback the source callback
+	 * @param watermarkKey the key of the watermark in the watermarkStore. Must be unique per user and sync. If not provided,
+	 * 			a key derived from the user's permission id is used
+	 * @param pollingIntervalSeconds how long to wait between polls when there are no pending changes
+	 * @param includeSubscribed Whether to include shared files and public files the user has opened
+	 * @param pageSize how many changes to request per page
+	 * @param prefetchDepth if greater than zero, how many pages to request ahead while the current one is being read
+	 * @param maxChangesPerPoll the maximum amount of changes (rounded up to a page) to read in one poll.
+	 * 			If more are available, the next poll starts immediately
+	 * @param coalesce Whether to dispatch only one change per file for each poll. The latest change of each file is
+	 * 			dispatched, and deletions are never replaced by later changes
+	 * @param maxDeliveryAttempts how many times a change is dispatched before skipping it. Zero means retrying forever
+	 * @throws Exception if the source could not be started
+	 */
+	@Source
+	@OAuthProtected
+	public void syncChanges(
+			SourceCallback callback,
+			@Optional String watermarkKey,
+			@Optional @Default("60") int pollingIntervalSeconds,
+			@Optional @Default("true") boolean includeSubscribed,
+			@Optional @Default("100") int pageSize,
+			@Optional @Default("2") int prefetchDepth,
+			@Optional @Default("1000") int maxChangesPerPoll,
+			@Optional @Default("false") boolean coalesce,
+			@Optional @Default("5") int maxDeliveryAttempts) throws Exception {
+		
+		if (watermarkKey == null) {
+			watermarkKey = "google-drive-changes-" + this.getPermissionId();
+		}
+		
+		ChangeSyncEngine engine = new ChangeSyncEngine(this.client, this.watermarkStore, watermarkKey, includeSubscribed,
+				pageSize, prefetchDepth, maxChangesPerPoll);
+		Map<Long, Integer> failedDeliveries = new HashMap<Long, Integer>();
+		
+		while (!Thread.currentThread().isInterrupted()) {
+			boolean hasMore = false;
+			
+			try {
+				hasMore = this.dispatchChanges(engine, callback, coalesce, null, failedDeliveries, maxDeliveryAttempts);
+			} catch (Exception e) {
+				logger.error(String.format("Error synchronizing changes for %s. Retrying in %d seconds", watermarkKey, pollingIntervalSeconds), e);
+			}
+			
+			if (!hasMore) {
+				try {
+					Thread.sleep(pollingIntervalSeconds * 1000L);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Message source which dispatches changes as soon as Google Drive notifies them, instead of polling. A push
+	 * notification channel is opened for the user's change feed (or a single file) and notifications are received on an
+	 * embedded http endpoint. Each notification triggers an incremental fetch of the changes after the watermark kept
+	 * in the watermarkStore, which are then dispatched in order as {@link org.mule.module.google.drive.model.Change}
+	 * objects. Channels are renewed before they expire, and changes are also fetched after each renewal so that
+	 * nothing is missed while no channel was open. If fetching or dispatching fails, the fetch is retried 30 seconds
+	 * later without waiting for another notification.
+	 * 
+	 * Google Drive only delivers notifications to https addresses of verified domains. The embedded endpoint serves
+	 * plain http, so it's meant to be exposed through a proxy or load balancer terminating TLS at the given address.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:watch-changes}
+	 * 
+	 * @param callback the source callback
+	 * @param address the public https url at which Google Drive will post the notifications
+	 * @param host the host the embedded endpoint binds to
+	 * @param port the port the embedded endpoint listens on. Each watch-changes source needs its own port,
+	 * 			starting a second one on the same port fails
+	 * @param path the path the embedded endpoint listens on
+	 * @param fileId if provided, only this file is watched and only its changes are dispatched
+	 * @param watermarkKey the key of the watermark in the watermarkStore. Must be unique per user and watch. If not provided,
+	 * 			a key derived from the user's permission id and the watched file is used
+	 * @param channelTtlSeconds the requested lifetime of each channel
+	 * @param renewBeforeSeconds how long before a channel expires to replace it with a new one. Must be lower than channelTtlSeconds.
+	 * 			Channels are never renewed less than 30 seconds after being opened, even if the server grants a shorter lifetime
+	 * @param coalesce Whether to dispatch only one change per file for each fetch
+	 * @param maxDeliveryAttempts how many times a change is dispatched before skipping it. Zero means retrying forever
+	 * @param apiBaseUrl the base url of the Drive API the channels are opened against, ending with a slash.
+	 * 			If not provided, the client's own is used. Useful to point to a local stand in
+	 * @throws Exception if the embedded endpoint could not be started
+	 * @throws IllegalArgumentException if channelTtlSeconds is not greater than renewBeforeSeconds
+	 */
+	@Source
+	@OAuthProtected
+	public void watchChanges(
+			SourceCallback callback,
+			String address,
+			@Optional @Default("0.0.0.0") String host,
+			@Optional @Default("8090") int port,
+			@Optional @Default("/google-drive/notifications") String path,
+			@Optional String fileId,
+			@Optional String watermarkKey,
+			@Optional @Default("3600") int channelTtlSeconds,
+			@Optional @Default("300") int renewBeforeSeconds,
+			@Optional @Default("false") boolean coalesce,
+			@Optional @Default("5") int maxDeliveryAttempts,
+			@Optional String apiBaseUrl) throws Exception {
+		
+		if (renewBeforeSeconds < 0 || channelTtlSeconds <= renewBeforeSeconds) {
+			throw new IllegalArgumentException(String.format(
+					"channelTtlSeconds (%d) must be greater than renewBeforeSeconds (%d), which cannot be negative", channelTtlSeconds, renewBeforeSeconds));
+		}
+		
+		if (watermarkKey == null) {
+			watermarkKey = "google-drive-watch-" + this.getPermissionId() + (fileId != null ? "-" + fileId : "");
+		}
+		
+		String baseUrl = apiBaseUrl != null ? apiBaseUrl : this.client.getRootUrl() + this.client.getServicePath();
+		String resource = fileId != null ? "files/" + fileId : "changes";
+		String token = UUID.randomUUID().toString();
+		long renewBeforeMillis = renewBeforeSeconds * 1000L;
+		
+		ChangeSyncEngine engine = new ChangeSyncEngine(this.client, this.watermarkStore, watermarkKey, true, 100, 0, 1000);
+		Map<Long, Integer> failedDeliveries = new HashMap<Long, Integer>();
+		NotificationReceiver receiver = new NotificationReceiver(host, port, path, token);
+		receiver.start();
+		
+		WatchChannel channel = null;
+		long renewAt = 0;
+		long retryAt = Long.MAX_VALUE;
+		
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				boolean fetch = false;
+				
+				if (System.currentTimeMillis() >= renewAt) {
+					try {
+						WatchChannel renewed = WatchChannel.open(this.client.getRequestFactory(), this.client.getJsonFactory(),
+								baseUrl, resource, address, token, channelTtlSeconds);
+						receiver.register(renewed.getId());
+						
+						this.closeChannel(receiver, channel);
+						channel = renewed;
+						
+						// the granted expiration can be shorter than requested, so never renew back to back
+						renewAt = Math.max(channel.getExpiration() - renewBeforeMillis, System.currentTimeMillis() + WATCH_RETRY_SECONDS * 1000L);
+					} catch (IOException e) {
+						logger.error(String.format("Could not open watch channel for %s. Retrying in %d seconds", resource, WATCH_RETRY_SECONDS), e);
+						renewAt = System.currentTimeMillis() + WATCH_RETRY_SECONDS * 1000L;
+					}
+					
+					fetch = true;
+				} else if (System.currentTimeMillis() >= retryAt) {
+					fetch = true;
+				} else {
+					fetch = receiver.await(Math.min(renewAt, retryAt) - System.currentTimeMillis());
+				}
+				
+				if (fetch) {
+					try {
+						while (this.dispatchChanges(engine, callback, coalesce, fileId, failedDeliveries, maxDeliveryAttempts)) {
+							// keep fetching while more changes are available
+						}
+						
+						retryAt = Long.MAX_VALUE;
+					} catch (Exception e) {
+						logger.error(String.format("Error dispatching changes for %s. Retrying in %d seconds", resource, WATCH_RETRY_SECONDS), e);
+						retryAt = System.currentTimeMillis() + WATCH_RETRY_SECONDS * 1000L;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// source stopped
+		} finally {
+			this.closeChannel(receiver, channel);
+			receiver.stop();
+		}
+	}
+	
+	private void closeChannel(NotificationReceiver receiver, WatchChannel channel) {
+		if (channel == null) {
+			return;
+		}
+		
+		receiver.unregister(channel.getId());
+		
+		try {
+			channel.stop();
+		} catch (IOException e) {
+			logger.warn("Could not stop watch channel " + channel.getId(), e);
+		}
+	}
+	
+	/**
+	 * Fetches the changes after the engine's watermark, dispatches them in order and then advances the watermark
+	 * 
+	 * @param engine the engine to fetch the changes from
+	 * @param callback the callback to dispatch the changes to
+	 * @param coalesce whether to dispatch only the latest change of each file
+	 * @param fileId if not <code>null</code>, only the changes of this file are dispatched
+	 * @param failedDeliveries the amount of failed dispatches of each change, kept across invocations
+	 * @param maxDeliveryAttempts how many times a change is dispatched before skipping it. Zero means no limit
+	 * @return whether more changes are already available
+	 * @throws Exception if a change failed to be dispatched and has attempts left, in which case the watermark is not advanced
+	 */
+	private boolean dispatchChanges(ChangeSyncEngine engine, SourceCallback callback, boolean coalesce, String fileId,
+			Map<Long, Integer> failedDeliveries, int maxDeliveryAttempts) throws Exception {
+		ChangeBatch batch = engine.poll();
+		
+		List<Change> changes = coalesce ? ChangeCoalescer.coalesce(batch.getChanges()) : batch.getChanges();
+		
+		for (Change change : changes) {
+			if (fileId != null && !fileId.equals(change.getFileId())) {
+				continue;
+			}
+			
+			try {
+				callback.process(change);
+				failedDeliveries.remove(change.getId());
+			} catch (Exception e) {
+				Integer failures = failedDeliveries.get(change.getId());
+				failures = failures != null ? failures + 1 : 1;
+				
+				if (maxDeliveryAttempts <= 0 || failures < maxDeliveryAttempts) {
+					failedDeliveries.put(change.getId(), failures);
+					throw e;
+				}
+				
+				failedDeliveries.remove(change.getId());
+				logger.error(String.format("Skipping change %d of file %s after %d failed delivery attempts", change.getId(), change.getFileId(), failures), e);
+			}
+		}
+		
+		engine.commit(batch);
+		
+		return batch.hasMore();
+	}
+	
+	/**
+	 * Returns a particular change by its id
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:get-change}
+	 * 
+	 * @param changeId the id of the change you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
+	 * @return an instance of {@link org.mule.module.google.drive.model.Change}
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Change getChange(String changeId, @Optional List<String> fields) throws IOException {
+		return new Change(this.client.changes().get(changeId).setFields(this.toFields(fields, false)).execute());
+	}
+	
+	/**
+	 * Inserts a file into a folder.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:insert-file-in-folder}
+	 * 
+	 * @param fileId  the id of the file you want to insert
+	 * @param folderId the id of the folder you want to insert the file into
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public void insertFileInFolder(String fileId, @Optional @Default("root") String folderId) throws IOException {
+		ChildReference child = new ChildReference();
+		child.setId(fileId);
+		this.client.children().insert(folderId, child).execute();
+		this.fileChanged(fileId);
+	}
+	
+	/**
+	 * Removes a file from a folder.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:delete-file-from-folder}
+	 * 
+	 * @param fileId the id of the file
+	 * @param folderId The ID of the folder.
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public void deleteFileFromFolder(String fileId, @Optional @Default("root") String folderId) throws IOException {
+		ChildReference child = new ChildReference();
+		child.setId(fileId);
+		this.client.children().delete(folderId, fileId).execute();
+		this.fileChanged(fileId);
+	}
+	
+	/**
+	 * Lists a file's permissions
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-permissions}
+	 * 
+	 * @param fileId the id of the file which permissions you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
+	 * @return a list with instances of {@link org.mule.module.google.drive.model.Permission}
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public List<Permission> listPermissions(String fileId, @Optional List<String> fields) throws IOException {
+		return Permission.valueOf(this.client.permissions().list(fileId).setFields(this.toFields(fields, false)).execute().getItems(), Permission.class);
+	}
+	
+	/**
+	 * Deletes a permission from a file
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:delete-permission}
+	 * 
+	 * @param fileId the id of the file owning the permission to be deleted
+	 * @param permissionId the id of the permission to be deleted
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public void deletePermission(String fileId, String permissionId) throws IOException {
 		this.client.permissions().delete(fileId, permissionId).execute();
+		this.fileChanged(fileId);
 	}
 	
 	/**
@@ -677,14 +2032,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * @param fileId the id of the file owning the permission you want
 	 * @param permissionId the id of the permission you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return an instance of {@link org.mule.module.google.drive.model.Permission}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public Permission getPermission(String fileId, String permissionId) throws IOException {
-		return new Permission(this.client.permissions().get(fileId, permissionId).execute());
+	public Permission getPermission(String fileId, String permissionId, @Optional List<String> fields) throws IOException {
+		return new Permission(this.client.permissions().get(fileId, permissionId).setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
@@ -709,10 +2065,68 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 			@Optional @Default("true") boolean sendNotificationEmails
 			) throws IOException {
 		
-		return new Permission(this.client.permissions().insert(fileId, permission.wrapped())
+		Permission inserted = new Permission(this.client.permissions().insert(fileId, permission.wrapped())
 								.setEmailMessage(emailMessage)
 								.setSendNotificationEmails(sendNotificationEmails)
 								.execute());
+		
+		this.fileChanged(fileId);
+		return inserted;
+	}
+	
+	/**
+	 * Grants every given permission on every given file. The full cross product of files and permissions
+	 * is sent using batch requests of up to 100 grants each, with a bounded amount of batches in flight.
+	 * A failed grant does not stop the others, its details are reported in its result instead
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:insert-permissions}
+	 * 
+	 * @param fileIds the ids of the files to share
+	 * @param permissions the permissions to grant on each file
+	 * @param emailMessage A custom message to include in notification emails.
+	 * @param sendNotificationEmails Whether to send notification emails when sharing to users or groups. Applies to the whole operation
+	 * @param concurrency the maximum amount of batch requests to execute concurrently
+	 * @return a list of {@link org.mule.module.google.drive.model.PermissionBatchResult}, one per file and permission pair
+	 * @throws IOException in case of connection issues
+	 */
+	@Processor
+    @OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public List<PermissionBatchResult> insertPermissions(
+			List<String> fileIds,
+			@Optional @Default("#[payload]") List<Permission> permissions,
+			final @Optional String emailMessage,
+			final @Optional @Default("true") boolean sendNotificationEmails,
+			@Optional @Default("4") int concurrency
+			) throws IOException {
+		
+		List<PermissionBatchResult> grants = new ArrayList<PermissionBatchResult>(fileIds.size() * permissions.size());
+		for (String fileId : fileIds) {
+			for (Permission permission : permissions) {
+				grants.add(new PermissionBatchResult(fileId, permission));
+			}
+		}
+		
+		return new DriveBatch<PermissionBatchResult, com.google.api.services.drive.model.Permission, PermissionBatchResult>() {
+			
+			@Override
+			protected AbstractGoogleJsonClientRequest<com.google.api.services.drive.model.Permission> newRequest(PermissionBatchResult grant) throws IOException {
+				return client.permissions().insert(grant.getId(), grant.getRequestedPermission().wrapped())
+							.setEmailMessage(emailMessage)
+							.setSendNotificationEmails(sendNotificationEmails);
+			}
+			
+			@Override
+			protected PermissionBatchResult newResult(PermissionBatchResult grant) {
+				return grant;
+			}
+			
+			@Override
+			protected void onSuccess(PermissionBatchResult result, com.google.api.services.drive.model.Permission response) {
+				result.setPermission(new Permission(response));
+				fileChanged(result.getId());
+			}
+		}.execute(this.client, this.rateLimiter, grants, concurrency);
 	}
 	
 	/**
@@ -729,7 +2143,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public Permission updatePermission(String fileId, @Optional @Default("#[payload]") Permission permission) throws IOException {
-		return new Permission(this.client.permissions().update(fileId, permission.getId(), permission.wrapped()).execute());
+		Permission updated = new Permission(this.client.permissions().update(fileId, permission.getId(), permission.wrapped()).execute());
+		
+		this.fileChanged(fileId);
+		return updated;
 	}
 	
 	
@@ -757,10 +2174,13 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
 	public Permission patchPermission(String fileId, @Optional @Default("#[payload]") Permission permission, List<String> fields) throws IOException {
-		return new Permission(this.client.permissions().patch(
+		Permission patched = new Permission(this.client.permissions().patch(
 						fileId, permission.getId(), permission.wrapped())
 					.setFields(this.toString(fields))
 					.execute());
+		
+		this.fileChanged(fileId);
+		return patched;
 	}
 	
 	/**
@@ -769,6 +2189,14 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-revision}
 	 * 
 	 * @param revision an instance of {@link org.mule.module.google.drive.model.Revision}. The downloadUrl attribute cannot be blank
+	 * @param parallelism How many byte ranges to fetch concurrently. If greater than one and the revision's size
+	 * 			is known, the revision is downloaded over several connections and reassembled in order
+	 * @param rangeSize If parallelism is greater than one, the size in bytes of each range
+	 * @param maxResumeAttempts If greater than zero, an interrupted download is transparently resumed from the last
+	 * 			delivered byte up to this many times, and the received size and md5 checksum are verified at the end.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param verifyChecksum Whether to compute the md5 checksum of the content while it is read and compare it with the
+	 * 			revision's md5Checksum. If they don't match, reading the end of the stream fails with an IOException
 	 * @return an instance of {@link java.io.InputStream}
 	 * @throws IOException in case of connection issues 
 	 * @throws IllegalArgumentException if revision is null or its downloadUrl property is blank
@@ -776,12 +2204,17 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public InputStream downloadRevision(@Optional @Default("#[payload]") Revision revision) throws IOException {
+	public InputStream downloadRevision(
+			@Optional @Default("#[payload]") Revision revision,
+			@Optional @Default("1") int parallelism,
+			@Optional @Default("8388608") int rangeSize,
+			@Optional @Default("0") int maxResumeAttempts,
+			@Optional @Default("false") boolean verifyChecksum) throws IOException {
 		if (revision == null) {
 			throw new IllegalArgumentException("Revision cannot be null");
 		}
 		
-		return this.download(revision.getDownloadUrl());
+		return this.download(revision.getDownloadUrl(), revision.getFileSize(), revision.getMd5Checksum(), parallelism, rangeSize, maxResumeAttempts, verifyChecksum);
 	}
 	
 	/**
@@ -791,14 +2224,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * @param fileId the id of the file from which a revision you want
 	 * @param revisionId the id of the revision you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return an instance of {@link org.mule.module.google.drive.model.Revision}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public Revision getRevision(String fileId, String revisionId) throws IOException {
-		return new Revision(this.client.revisions().get(fileId, revisionId).execute());
+	public Revision getRevision(String fileId, String revisionId, @Optional List<String> fields) throws IOException {
+		return new Revision(this.client.revisions().get(fileId, revisionId).setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
@@ -823,14 +2257,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-revisions}
 	 * 
 	 * @param fileId the id of the file which revisions you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return a list with instances of {@link org.mule.module.google.drive.model.Revision}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public List<Revision> listRevisions(String fileId) throws IOException {
-		return Revision.valueOf(this.client.revisions().list(fileId).execute().getItems(), Revision.class);
+	public List<Revision> listRevisions(String fileId, @Optional List<String> fields) throws IOException {
+		return Revision.valueOf(this.client.revisions().list(fileId).setFields(this.toFields(fields, false)).execute().getItems(), Revision.class);
 	}
 	
 	/**
@@ -883,14 +2318,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * 
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-apps}
 	 * 
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return a list with instances of {@link org.mule.module.google.drive.model.App}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public List<App> listApps() throws IOException {
-		return App.valueOf(this.client.apps().list().execute().getItems(), App.class);
+	public List<App> listApps(@Optional List<String> fields) throws IOException {
+		return App.valueOf(this.client.apps().list().setFields(this.toFields(fields, false)).execute().getItems(), App.class);
 	}
 	
 	/**
@@ -899,14 +2335,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:get-app}
 	 * 
 	 * @param appId the id of the app you want
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return an instance of {@link org.mule.module.google.drive.model.App}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public App getApp(String appId) throws IOException {
-		return new App(this.client.apps().get(appId).execute());
+	public App getApp(String appId, @Optional List<String> fields) throws IOException {
+		return new App(this.client.apps().get(appId).setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
@@ -917,14 +2354,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param fileId the id of the file owning the comment you want
 	 * @param commentId the id of the comment you want
 	 * @param includeDeleted If true, this will succeed when retrieving a deleted comment, and will include any deleted replies
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return an instance of {@link org.mule.module.google.drive.model.Comment}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public Comment getComment(String fileId, String commentId, @Optional @Default("false") boolean includeDeleted) throws IOException {
-		return new Comment(this.client.comments().get(fileId, commentId).setIncludeDeleted(includeDeleted).execute());
+	public Comment getComment(String fileId, String commentId, @Optional @Default("false") boolean includeDeleted, @Optional List<String> fields) throws IOException {
+		return new Comment(this.client.comments().get(fileId, commentId).setIncludeDeleted(includeDeleted).setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
@@ -936,6 +2374,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param includeDeleted If true, all comments and replies, including deleted comments and replies (with content stripped) will be returned.
 	 * @param maxResults The maximum number of discussions to include in the response, used for paging. Acceptable values are 0 to 100, inclusive.
 	 * @param updatedMin Only discussions that were updated after this timestamp will be returned. Formatted as an RFC 3339 timestamp.
+	 * @param fields Optional list of fields to include in each page (partial response), for example items(id,md5Checksum).
+	 * 			If not provided, full resources are returned
+	 * @param prefetchDepth If greater than zero, the next pages are requested in the background while the current one is being
+	 * 			consumed, holding up to this many pages in memory
 	 * @param pagingConfiguration the paging configuration object
      * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.Comment}
 	 * @throws IOException in case of connection issues
@@ -949,24 +2391,28 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 			final @Optional @Default("false") boolean includeDeleted,
 			final @Optional @Default("100") int maxResults,
 			final @Optional String updatedMin,
+			final @Optional List<String> fields,
+			final @Optional @Default("0") int prefetchDepth,
 			final PagingConfiguration pagingConfiguration
 			) throws IOException {
 		
-		return new TokenBasedPagingDelegate<Comment>() {
+		final String projection = this.toFields(fields, true);
+		
+		return this.paginate(new PageFetcher<Comment>() {
 			
 			@Override
-			protected List<Comment> doGetPage() throws IOException {
+			public Page<Comment> fetch(String pageToken) throws IOException {
 				CommentList response = client.comments().list(fileId)
 						.setIncludeDeleted(includeDeleted)
 						.setMaxResults(maxResults)
-						.setPageToken(this.getPageToken())
+						.setPageToken(pageToken)
 						.setUpdatedMin(updatedMin)
+						.setFields(projection)
 						.execute();
 				
-				this.setPageToken(response.getNextPageToken());
-				return Comment.valueOf(response.getItems(), Comment.class);
+				return new Page<Comment>(Comment.valueOf(response.getItems(), Comment.class), response.getNextPageToken());
 			}
-		};
+		}, prefetchDepth);
 		
 	}
 	
@@ -1058,14 +2504,15 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param commentId the id of the comment which reply you want
 	 * @param replyId the id of the reply you want
 	 * @param includeDeleted If true, this will succeed when retrieving a deleted comment, and will include any deleted replies
+	 * @param fields Optional list of fields to include in the response (partial response). If not provided, the full resource is returned
 	 * @return an instance of {@link org.mule.module.google.drive.model.CommentReply}
 	 * @throws IOException in case of connection issues
 	 */
 	@Processor
     @OAuthProtected
 	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
-	public CommentReply getCommentReply(String fileId, String commentId, String replyId, @Optional @Default("false") boolean includeDeleted) throws IOException {
-		return new CommentReply(this.client.replies().get(fileId, commentId, replyId).setIncludeDeleted(includeDeleted).execute());
+	public CommentReply getCommentReply(String fileId, String commentId, String replyId, @Optional @Default("false") boolean includeDeleted, @Optional List<String> fields) throws IOException {
+		return new CommentReply(this.client.replies().get(fileId, commentId, replyId).setIncludeDeleted(includeDeleted).setFields(this.toFields(fields, false)).execute());
 	}
 	
 	/**
@@ -1077,6 +2524,10 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	 * @param commentId the id of the comment which reply you want
 	 * @param includeDeleted If true, all comments and replies, including deleted comments and replies (with content stripped) will be returned.
 	 * @param maxResults The maximum number of replies to include in the response, used for paging. Acceptable values are 0 to 100.
+	 * @param fields Optional list of fields to include in each page (partial response), for example items(id,md5Checksum).
+	 * 			If not provided, full resources are returned
+	 * @param prefetchDepth If greater than zero, the next pages are requested in the background while the current one is being
+	 * 			consumed, holding up to this many pages in memory
 	 * @param pagingConfiguration the paging configuration object
      * @return a paginated iterator with instances of {@link org.mule.module.google.drive.model.CommentReply}
 	 * @throws IOException in case of connection issues
@@ -1090,23 +2541,27 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 			final String commentId, 
 			final @Optional @Default("false") boolean includeDeleted,
 			final @Optional @Default("100") int maxResults,
+			final @Optional List<String> fields,
+			final @Optional @Default("0") int prefetchDepth,
 			final PagingConfiguration pagingConfiguration
 			) throws IOException {
 		
-		return new TokenBasedPagingDelegate<CommentReply>() {
+		final String projection = this.toFields(fields, true);
+		
+		return this.paginate(new PageFetcher<CommentReply>() {
 			
 			@Override
-			protected List<CommentReply> doGetPage() throws IOException {
+			public Page<CommentReply> fetch(String pageToken) throws IOException {
 				CommentReplyList response = client.replies().list(fileId, commentId)
 						.setIncludeDeleted(includeDeleted)
 						.setMaxResults(maxResults)
-						.setPageToken(this.getPageToken())
+						.setPageToken(pageToken)
+						.setFields(projection)
 						.execute();
 				
-				this.setPageToken(response.getNextPageToken());
-				return CommentReply.valueOf(response.getItems(), CommentReply.class);
+				return new Page<CommentReply>(CommentReply.valueOf(response.getItems(), CommentReply.class), response.getNextPageToken());
 			}
-		};
+		}, prefetchDepth);
 	}
 	
 	/**
@@ -1193,12 +2648,608 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 	}
 	
 	
-	private InputStream download(String downloadUrl) throws IOException {
+	/**
+	 * Asynchronous version of get-file-metadata. The request is issued on the connector's async executor and this
+	 * processor returns right away, releasing the flow thread. Once the response arrives, the rest of the flow
+	 * continues on the executor's thread with the file as payload. If the operation fails, the rest of the flow
+	 * is not executed and the error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:get-file-metadata-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param fileId the id of the file
+	 * @param fields Optional list of fields to include in the response (partial response)
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object getFileMetadataAsync(MuleEvent event, SourceCallback afterChain, final String fileId, final @Optional List<String> fields) {
+		return this.async(event, afterChain, "get-file-metadata " + fileId, new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				return getFileMetadata(fileId, false, fields, true);
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of upload. The content is uploaded from the connector's async executor and this processor
+	 * returns right away, releasing the flow thread. Once the upload completes, the rest of the flow continues on the
+	 * executor's thread with the new file as payload. If the operation fails, the rest of the flow is not executed
+	 * and the error is handled by the flow's exception strategy. Notice that the content stream is consumed from
+	 * the executor's thread.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:upload-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param file an instance of {@link org.mule.module.google.drive.model.File} holding the file's metadata
+	 * @param mimeType the mimeType for the file being uploaded
+	 * @param contentStream an input stream holding the file's content
+	 * @param ocr Whether to attempt OCR on .jpg, .png, .gif, or .pdf uploads.
+	 * @param ocrLanguage If ocr is true, hints at the language to use. Valid values are ISO 639-1 codes.
+	 * @param convert Whether to convert this file to the corresponding Google Docs format
+	 * @param pinned Whether to pin the head revision of the uploaded file.
+	 * @param timedTextLanguage The language of the timed text.
+	 * @param timedTextTrackName The timed text track name.
+	 * @param indexContent Whether to use the content as indexable text
+	 * @param resumable Whether to use the resumable upload protocol, sending the content in chunks
+	 * 			and resuming from the last acknowledged byte if a chunk fails
+	 * @param chunkSize If resumable is true, the size in bytes of each chunk. Must be a multiple of 256KB 
+	 * @param maxResumeAttempts If resumable is true, how many consecutive times to try resuming a failed chunk before giving up.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param spoolContent Whether to spool the content stream into a temporary file before uploading. This allows sending
+	 * 			the exact content length and replaying the content if the request needs to be retried
+	 * @param skipIfExists If true, the content is spooled while computing its md5 checksum and the target folder is searched for
+	 * 			a file with the same title and checksum. If one exists, no content is transferred and that file is returned instead.
+	 * 			Requires the file's metadata to have a title
+	 * @param verifyChecksum Whether to compute the md5 checksum of the content while it is sent and compare it with the
+	 * 			md5Checksum of the uploaded file, failing if they don't match. Files converted to Google Docs formats are not verified
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 * @throws IllegalArgumentException if skipIfExists is true and the file has no title
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object uploadAsync(
+			MuleEvent event,
+			SourceCallback afterChain,
+			final @Optional @Default("#[payload]") File file,
+			final String mimeType,
+			final InputStream contentStream,
+			final @Optional @Default("false") boolean ocr,
+			final @Optional @Default("en") String ocrLanguage,
+			final @Optional @Default("false") boolean convert,
+			final @Optional @Default("false") boolean pinned,
+			final @Optional String timedTextLanguage,
+			final @Optional String timedTextTrackName,
+			final @Optional @Default("false") boolean indexContent,
+			final @Optional @Default("false") boolean resumable,
+			final @Optional @Default("10485760") int chunkSize,
+			final @Optional @Default("3") int maxResumeAttempts,
+			final @Optional @Default("false") boolean spoolContent,
+			final @Optional @Default("false") boolean skipIfExists,
+			final @Optional @Default("false") boolean verifyChecksum) {
+		
+		if (skipIfExists) {
+			this.checkDuplicateCriteria(file);
+		}
+		
+		return this.async(event, afterChain, "upload", new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				return upload(file, mimeType, contentStream, ocr, ocrLanguage, convert, pinned, timedTextLanguage, timedTextTrackName,
+						indexContent, resumable, chunkSize, maxResumeAttempts, spoolContent, skipIfExists, verifyChecksum);
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of download-file. The download is opened from the connector's async executor and this
+	 * processor returns right away, releasing the flow thread. Once the content is available, the rest of the flow
+	 * continues on the executor's thread with an input stream as payload. If the operation fails, the rest of the
+	 * flow is not executed and the error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:download-file-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param file an instance of {@link org.mule.module.google.drive.model.File}. The downloadUrl attribute cannot be blank
+	 * @param parallelism How many byte ranges to fetch concurrently. If greater than one and the file's size
+	 * 			is known, the file is downloaded over several connections and reassembled in order
+	 * @param rangeSize If parallelism is greater than one, the size in bytes of each range
+	 * @param maxResumeAttempts If greater than zero, an interrupted download is transparently resumed from the last
+	 * 			delivered byte up to this many times, and the received size and md5 checksum are verified at the end.
+	 * 			Attempts are spaced using initialBackoffMillis and maxBackoffMillis
+	 * @param verifyChecksum Whether to verify the content's md5 checksum while it is read
+	 * @param useCache Whether to use the download cache, if a downloadCacheDirectory is configured
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object downloadFileAsync(
+			MuleEvent event,
+			SourceCallback afterChain,
+			final @Optional @Default("#[payload]") File file,
+			final @Optional @Default("1") int parallelism,
+			final @Optional @Default("8388608") int rangeSize,
+			final @Optional @Default("0") int maxResumeAttempts,
+			final @Optional @Default("false") boolean verifyChecksum,
+			final @Optional @Default("true") boolean useCache) {
+		
+		return this.async(event, afterChain, "download-file", new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				return downloadFile(file, parallelism, rangeSize, maxResumeAttempts, verifyChecksum, useCache);
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of copy-file. The copy is requested from the connector's async executor and this processor
+	 * returns right away, releasing the flow thread. Once it completes, the rest of the flow continues on the executor's
+	 * thread with the copied file as payload. If the operation fails, the rest of the flow is not executed and the
+	 * error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:copy-file-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param sourceId the id of the file to copy
+	 * @param copiedFile an instance of {@link org.mule.module.google.drive.model.File} with the copy's metadata
+	 * @param ocr Whether to attempt OCR on .jpg, .png, .gif, or .pdf uploads.
+	 * @param ocrLanguage If ocr is true, hints at the language to use. Valid values are ISO 639-1 codes.
+	 * @param convert Whether to convert this file to the corresponding Google Docs format
+	 * @param pinned Whether to pin the head revision of the uploaded file.
+	 * @param timedTextLanguage The language of the timed text.
+	 * @param timedTextTrackName The timed text track name.
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object copyFileAsync(
+			MuleEvent event,
+			SourceCallback afterChain,
+			final String sourceId,
+			final @Optional @Default("#[payload]") File copiedFile,
+			final @Optional @Default("false") boolean ocr,
+			final @Optional @Default("en") String ocrLanguage,
+			final @Optional @Default("false") boolean convert,
+			final @Optional @Default("false") boolean pinned,
+			final @Optional String timedTextLanguage,
+			final @Optional String timedTextTrackName) {
+		
+		return this.async(event, afterChain, "copy-file " + sourceId, new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				return copyFile(sourceId, copiedFile, ocr, ocrLanguage, convert, pinned, timedTextLanguage, timedTextTrackName);
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of delete-file. The file is deleted from the connector's async executor and this processor
+	 * returns right away, releasing the flow thread. Once the deletion completes, the rest of the flow continues on the
+	 * executor's thread with the file's id as payload. If the operation fails, the rest of the flow is not executed
+	 * and the error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:delete-file-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param fileId the id of the file you want to delete
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object deleteFileAsync(MuleEvent event, SourceCallback afterChain, final String fileId) {
+		return this.async(event, afterChain, "delete-file " + fileId, new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				deleteFile(fileId);
+				return fileId;
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of list-files. All the pages are fetched from the connector's async executor and this
+	 * processor returns right away, releasing the flow thread. Once the listing completes, the rest of the flow
+	 * continues on the executor's thread with a list of {@link org.mule.module.google.drive.model.File} as payload.
+	 * If the operation fails, the rest of the flow is not executed and the error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-files-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param query Query string for searching files
+	 * @param fields Optional list of fields to include in each page (partial response)
+	 * @param pageSize Maximum number of files to request per page
+	 * @param maxFiles Maximum total number of files to return
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object listFilesAsync(
+			MuleEvent event,
+			SourceCallback afterChain,
+			final @Optional String query,
+			final @Optional List<String> fields,
+			final @Optional @Default("100") int pageSize,
+			final @Optional @Default("1000") int maxFiles) {
+		
+		return this.async(event, afterChain, "list-files", new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				List<com.google.api.services.drive.model.File> files = new ArrayList<com.google.api.services.drive.model.File>();
+				String projection = toFields(fields, true);
+				String token = null;
+				
+				do {
+					FileList response = client.files().list()
+							.setMaxResults(pageSize)
+							.setPageToken(token)
+							.setQ(query)
+							.setFields(projection)
+							.execute();
+					
+					if (response.getItems() != null) {
+						files.addAll(response.getItems());
+					}
+					
+					token = response.getNextPageToken();
+				} while (token != null && files.size() < maxFiles);
+				
+				return File.valueOf(files.size() > maxFiles ? files.subList(0, maxFiles) : files, File.class);
+			}
+		});
+	}
+	
+	/**
+	 * Asynchronous version of list-changes. All the pages are fetched from the connector's async executor and this
+	 * processor returns right away, releasing the flow thread. Once the listing completes, the rest of the flow
+	 * continues on the executor's thread with a list of {@link org.mule.module.google.drive.model.Change} as payload.
+	 * If the operation fails, the rest of the flow is not executed and the error is handled by the flow's exception strategy.
+	 * 
+	 * {@sample.xml ../../../doc/GoogleDriveConnector.xml.sample google-drive:list-changes-async}
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param startChangeId Change ID to start listing changes from
+	 * @param includeDeleted Whether to include deleted items
+	 * @param fields Optional list of fields to include in each page (partial response)
+	 * @param pageSize Maximum number of changes to request per page
+	 * @param maxChanges Maximum total number of changes to return
+	 * @return <code>null</code>. This processor is one-way: the rest of the flow runs on another thread, so a
+	 * 			request-response caller gets a <code>null</code> payload instead of the operation's result
+	 */
+	@Processor(intercepting = true)
+	@OAuthProtected
+	@OAuthInvalidateAccessTokenOn(exception=OAuthTokenExpiredException.class)
+	public Object listChangesAsync(
+			MuleEvent event,
+			SourceCallback afterChain,
+			final @Optional Long startChangeId,
+			final @Optional @Default("true") boolean includeDeleted,
+			final @Optional List<String> fields,
+			final @Optional @Default("100") int pageSize,
+			final @Optional @Default("1000") int maxChanges) {
+		
+		return this.async(event, afterChain, "list-changes", new Callable<Object>() {
+			
+			@Override
+			public Object call() throws Exception {
+				List<com.google.api.services.drive.model.Change> changes = new ArrayList<com.google.api.services.drive.model.Change>();
+				String projection = toFields(fields, true);
+				String token = null;
+				
+				do {
+					ChangeList response = client.changes().list()
+							.setIncludeDeleted(includeDeleted)
+							.setMaxResults(pageSize)
+							.setStartChangeId(startChangeId)
+							.setPageToken(token)
+							.setFields(projection)
+							.execute();
+					
+					if (response.getItems() != null) {
+						changes.addAll(response.getItems());
+					}
+					
+					token = response.getNextPageToken();
+				} while (token != null && changes.size() < maxChanges);
+				
+				return Change.valueOf(changes.size() > maxChanges ? changes.subList(0, maxChanges) : changes, Change.class);
+			}
+		});
+	}
+	
+	/**
+	 * Runs the operation on the async executor and continues the rest of the flow with its result. Failures of
+	 * the operation or of the rest of the flow are handed to the flow's exception strategy, since the flow thread
+	 * which would have handled them already returned.
+	 * 
+	 * @param event the current event
+	 * @param afterChain the rest of the flow
+	 * @param description a description of the operation for error messages
+	 * @param operation the operation to run
+	 * @return <code>null</code>, which ends the flow on the calling thread since the rest of it runs on the executor
+	 * @throws RejectedExecutionException if asyncThreads operations are running and asyncQueueSize more are waiting
+	 */
+	private Object async(final MuleEvent event, final SourceCallback afterChain, final String description, final Callable<Object> operation) {
+		try {
+			this.getAsyncExecutor().execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						afterChain.process(operation.call());
+					} catch (Exception e) {
+						handleAsyncFailure(event, description, e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			throw new RejectedExecutionException(String.format("Could not run asynchronous operation %s: %d operations are already waiting. "
+					+ "Increase asyncQueueSize or asyncThreads", description, this.asyncQueueSize), e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Hands the failure of an asynchronous operation to the exception strategy of the flow which started it
+	 */
+	private void handleAsyncFailure(MuleEvent event, String description, Exception e) {
+		MessagingException failure = e instanceof MessagingException ? (MessagingException) e : new MessagingException(event, e);
+		FlowConstruct flowConstruct = failure.getEvent().getFlowConstruct();
+		
+		if (flowConstruct == null || flowConstruct.getExceptionListener() == null) {
+			logger.error("Asynchronous operation failed: " + description, e);
+			return;
+		}
+		
+		try {
+			flowConstruct.getExceptionListener().handleException(failure, failure.getEvent());
+		} catch (Exception handlingError) {
+			logger.error("Error handling the failure of asynchronous operation " + description, handlingError);
+		}
+	}
+	
+	private synchronized ExecutorService getAsyncExecutor() {
+		if (this.asyncExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(this.asyncThreads, this.asyncThreads, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(Math.max(1, this.asyncQueueSize)),
+					new DaemonThreadFactory("google-drive-async"),
+					new ThreadPoolExecutor.AbortPolicy());
+			executor.allowCoreThreadTimeOut(true);
+			
+			this.asyncExecutor = executor;
+		}
+		
+		return this.asyncExecutor;
+	}
+	
+	/**
+	 * Releases the resources held by the connector: the threads of the async executor,
+	 * the connections of a pooled client factory, the download cache and the metadata index
+	 */
+	@Stop
+	public synchronized void stop() {
+		if (this.asyncExecutor != null) {
+			this.asyncExecutor.shutdown();
+			this.asyncExecutor = null;
+		}
+		
+		if (this.clientFactory instanceof PooledGoogleDriveClientFactory) {
+			((PooledGoogleDriveClientFactory) this.clientFactory).release();
+		}
+		
+		if (this.contentCache != null) {
+			this.contentCache.release();
+			this.contentCache = null;
+		}
+		
+		if (this.metadataIndex != null) {
+			this.metadataIndex.release();
+			this.metadataIndex = null;
+		}
+	}
+	
+	private InputStream download(String downloadUrl, Long size, String md5Checksum, int parallelism, int rangeSize, int maxResumeAttempts, boolean verifyChecksum) throws IOException {
 		if (StringUtils.isBlank(downloadUrl)) {
 			throw new IllegalArgumentException("Download url is null or blank");
 		}
 		
-		return this.client.getRequestFactory().buildGetRequest(new GenericUrl(downloadUrl)).execute().getContent();
+		InputStream in;
+		
+		if (parallelism > 1 && size != null && size > rangeSize) {
+			in = new RangedDownload(this.client.getRequestFactory(), downloadUrl, size, rangeSize, parallelism).openStream();
+		} else if (maxResumeAttempts > 0) {
+			in = new ResumableDownloadInputStream(this.client.getRequestFactory(), downloadUrl, size,
+					new BackoffPolicy(maxResumeAttempts, this.initialBackoffMillis, this.maxBackoffMillis));
+			verifyChecksum = true;
+		} else {
+			in = this.client.getRequestFactory().buildGetRequest(new GenericUrl(downloadUrl)).execute().getContent();
+		}
+		
+		if (verifyChecksum && !StringUtils.isBlank(md5Checksum)) {
+			in = new Md5VerifyingInputStream(in, downloadUrl, md5Checksum);
+		}
+		
+		return in;
+	}
+	
+	/**
+	 * Verifies the checksum of an uploaded file against the one computed locally.
+	 * Files converted into Google Docs formats have no checksum and are not verified
+	 * 
+	 * @param uploaded the uploaded file as returned by Google Drive
+	 * @param md5Checksum the checksum of the content which was sent
+	 * @return the uploaded file
+	 * @throws ChecksumMismatchException if the checksums don't match
+	 */
+	private File verifyUpload(File uploaded, String md5Checksum) throws ChecksumMismatchException {
+		String remote = uploaded.getMd5Checksum();
+		
+		if (remote != null && !remote.equalsIgnoreCase(md5Checksum)) {
+			throw new ChecksumMismatchException("uploaded file " + uploaded.getId(), md5Checksum, remote);
+		}
+		
+		return uploaded;
+	}
+	
+	/**
+	 * Returns the metadata index of the current user, opening it on first use.
+	 * Each user's index is kept in its own file named after the user's permission id
+	 */
+	private synchronized MetadataIndex getMetadataIndex() throws IOException {
+		if (this.metadataIndex == null) {
+			java.io.File directory = new java.io.File(this.metadataIndexDirectory);
+			
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("Could not create metadata index directory " + directory.getPath());
+			}
+			
+			this.metadataIndex = MetadataIndex.forFile(new java.io.File(directory, this.getPermissionId() + ".index"));
+		}
+		
+		return this.metadataIndex;
+	}
+	
+	/**
+	 * Returns the permission id of the current user, which uniquely identifies the user across sessions.
+	 * It is used to keep each user's local state apart
+	 */
+	private synchronized String getPermissionId() throws IOException {
+		if (this.permissionId == null) {
+			this.permissionId = this.client.about().get().setFields("permissionId").execute().getPermissionId();
+		}
+		
+		return this.permissionId;
+	}
+	
+	/**
+	 * Invalidates any cached state about the given file. Invoked after each operation that
+	 * modifies a file through this connector
+	 * 
+	 * @param fileId the id of the modified file
+	 */
+	private void fileChanged(String fileId) {
+		if (fileId == null) {
+			return;
+		}
+		
+		if (this.pathCache != null) {
+			this.pathCache.invalidate(fileId);
+		}
+		
+		if (this.metadataCache != null) {
+			this.metadataCache.invalidate(fileId);
+		}
+	}
+	
+	/**
+	 * Invokes {@link #fileChanged(String)} for each successful result
+	 * 
+	 * @param results the results of a batch operation
+	 * @return the same results
+	 */
+	private List<FileBatchResult> filesChanged(List<FileBatchResult> results) {
+		for (FileBatchResult result : results) {
+			if (result.isSuccessful()) {
+				this.fileChanged(result.getId());
+			}
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Escapes a literal to be used inside a search query
+	 */
+	private String escapeQueryLiteral(String value) {
+		return value.replace("\\", "\\\\").replace("'", "\\'");
+	}
+	
+	/**
+	 * Returns a {@link org.mule.streaming.PagingDelegate} over the pages of the given fetcher.
+	 * 
+	 * @param fetcher the fetcher for each page
+	 * @param prefetchDepth if greater than zero, how many pages to fetch ahead of the consumer
+	 */
+	private <T> PagingDelegate<T> paginate(final PageFetcher<T> fetcher, int prefetchDepth) {
+		if (prefetchDepth > 0) {
+			return new PrefetchingPagingDelegate<T>(fetcher, prefetchDepth);
+		}
+		
+		return new TokenBasedPagingDelegate<T>() {
+			
+			@Override
+			protected List<T> doGetPage() throws IOException {
+				Page<T> page = fetcher.fetch(this.getPageToken());
+				this.setPageToken(page.getNextPageToken());
+				
+				return page.getItems();
+			}
+		};
+	}
+	
+	/**
+	 * Batch operation over a list of file ids which records the file returned by each request, if any
+	 */
+	private static abstract class FileIdBatch<T> extends DriveBatch<String, T, FileBatchResult> {
+		
+		@Override
+		protected FileBatchResult newResult(String fileId) {
+			return new FileBatchResult(fileId);
+		}
+		
+		@Override
+		protected void onSuccess(FileBatchResult result, T response) {
+			if (response instanceof com.google.api.services.drive.model.File) {
+				result.setFile(new File((com.google.api.services.drive.model.File) response));
+			}
+		}
+	}
+	
+	/**
+	 * Turns a list of fields into a partial response selector.
+	 * 
+	 * @param fields the fields to include or <code>null</code>
+	 * @param paged whether the response is a page, in which case the next page token is always requested
+	 * @return the selector or <code>null</code> if no fields were provided
+	 */
+	private String toFields(List<String> fields, boolean paged) {
+		if (fields == null || fields.isEmpty()) {
+			return null;
+		}
+		
+		String selector = this.toString(fields);
+		
+		if (paged && !fields.contains("nextPageToken")) {
+			selector = "nextPageToken," + selector;
+		}
+		
+		return selector;
 	}
 	
 	private String toString(List<String> list) {
@@ -1255,6 +3306,142 @@ public class GoogleDriveConnector extends AbstractGoogleOAuthConnector {
 		this.clientFactory = clientFactory;
 	}
 
+	public TransferProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public void setProgressListener(TransferProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	public int getPathCacheSize() {
+		return pathCacheSize;
+	}
+
+	public void setPathCacheSize(int pathCacheSize) {
+		this.pathCacheSize = pathCacheSize;
+	}
+
+	public int getPathCacheTtlSeconds() {
+		return pathCacheTtlSeconds;
+	}
+
+	public void setPathCacheTtlSeconds(int pathCacheTtlSeconds) {
+		this.pathCacheTtlSeconds = pathCacheTtlSeconds;
+	}
+
+	public int getMetadataCacheSize() {
+		return metadataCacheSize;
+	}
+
+	public void setMetadataCacheSize(int metadataCacheSize) {
+		this.metadataCacheSize = metadataCacheSize;
+	}
+
+	public int getMetadataCacheFreshnessSeconds() {
+		return metadataCacheFreshnessSeconds;
+	}
+
+	public void setMetadataCacheFreshnessSeconds(int metadataCacheFreshnessSeconds) {
+		this.metadataCacheFreshnessSeconds = metadataCacheFreshnessSeconds;
+	}
+
+	public String getDownloadCacheDirectory() {
+		return downloadCacheDirectory;
+	}
+
+	public void setDownloadCacheDirectory(String downloadCacheDirectory) {
+		this.downloadCacheDirectory = downloadCacheDirectory;
+	}
+
+	public long getDownloadCacheMaxBytes() {
+		return downloadCacheMaxBytes;
+	}
+
+	public void setDownloadCacheMaxBytes(long downloadCacheMaxBytes) {
+		this.downloadCacheMaxBytes = downloadCacheMaxBytes;
+	}
+
+	public double getUserRequestsPerSecond() {
+		return userRequestsPerSecond;
+	}
+
+	public void setUserRequestsPerSecond(double userRequestsPerSecond) {
+		this.userRequestsPerSecond = userRequestsPerSecond;
+	}
+
+	public double getProjectRequestsPerSecond() {
+		return projectRequestsPerSecond;
+	}
+
+	public void setProjectRequestsPerSecond(double projectRequestsPerSecond) {
+		this.projectRequestsPerSecond = projectRequestsPerSecond;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	public void setInitialBackoffMillis(long initialBackoffMillis) {
+		this.initialBackoffMillis = initialBackoffMillis;
+	}
+
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	public void setMaxBackoffMillis(long maxBackoffMillis) {
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	public WatermarkStore getWatermarkStore() {
+		return watermarkStore;
+	}
+
+	public void setWatermarkStore(WatermarkStore watermarkStore) {
+		this.watermarkStore = watermarkStore;
+	}
+
+	public String getMetadataIndexDirectory() {
+		return metadataIndexDirectory;
+	}
+
+	public void setMetadataIndexDirectory(String metadataIndexDirectory) {
+		this.metadataIndexDirectory = metadataIndexDirectory;
+	}
+
+	public int getMetadataIndexRefreshSeconds() {
+		return metadataIndexRefreshSeconds;
+	}
+
+	public void setMetadataIndexRefreshSeconds(int metadataIndexRefreshSeconds) {
+		this.metadataIndexRefreshSeconds = metadataIndexRefreshSeconds;
+	}
+
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	public void setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public int getAsyncQueueSize() {
+		return asyncQueueSize;
+	}
+
+	public void setAsyncQueueSize(int asyncQueueSize) {
+		this.asyncQueueSize = asyncQueueSize;
+	}
+
 	public String getAccessToken() {
 		return accessToken;
 	}
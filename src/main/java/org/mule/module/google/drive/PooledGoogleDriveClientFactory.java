@@ -0,0 +1,173 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson.JacksonFactory;
+
+/**
+ * Implementation of {@link org.mule.module.google.drive.GoogleDriveClientFactory} in which
+ * all the generated clients share the same keep-alive connection pool and json factory.
+ * This avoids paying for socket setup and TLS handshakes each time a new user is authorized.
+ * 
+ * Idle connections are evicted by a background daemon thread. Since the same factory is usually shared
+ * by all the connector instances of a config, each of them calls {@link #retain()} when started and
+ * {@link #release()} when stopped. The pool is disposed once the last one is released.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class PooledGoogleDriveClientFactory extends DefaultGoogleDriveClientFactory {
+	
+	/**
+	 * Max number of pooled connections for a given route (host)
+	 */
+	private int maxConnectionsPerRoute = 20;
+	
+	/**
+	 * Max number of pooled connections across all routes
+	 */
+	private int maxTotalConnections = 200;
+	
+	/**
+	 * Number of seconds a connection can remain idle before being evicted
+	 */
+	private int idleConnectionTimeoutSeconds = 60;
+	
+	/**
+	 * How often (in seconds) to look for idle connections to evict
+	 */
+	private int evictionIntervalSeconds = 30;
+	
+	private final JsonFactory jsonFactory = new JacksonFactory();
+	private HttpTransport transport;
+	private ThreadSafeClientConnManager connectionManager;
+	private ScheduledExecutorService evictor;
+	private int users = 0;
+	
+	@Override
+	protected synchronized HttpTransport getTransport() {
+		if (this.transport == null) {
+			HttpParams params = new BasicHttpParams();
+			HttpConnectionParams.setStaleCheckingEnabled(params, true);
+			HttpConnectionParams.setSocketBufferSize(params, 8192);
+			
+			this.connectionManager = new ThreadSafeClientConnManager(SchemeRegistryFactory.createDefault());
+			this.connectionManager.setMaxTotal(this.maxTotalConnections);
+			this.connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerRoute);
+			
+			this.transport = new ApacheHttpTransport(new DefaultHttpClient(this.connectionManager, params));
+			this.startEvictor();
+		}
+		
+		return this.transport;
+	}
+	
+	@Override
+	protected JsonFactory getJsonFactory() {
+		return this.jsonFactory;
+	}
+	
+	/**
+	 * Registers a user of this factory, which must later invoke {@link #release()}
+	 */
+	public synchronized void retain() {
+		this.users++;
+	}
+	
+	/**
+	 * Unregisters a user of this factory. When no users are left, the pool is disposed
+	 */
+	public synchronized void release() {
+		if (this.users > 0 && --this.users == 0) {
+			this.dispose();
+		}
+	}
+	
+	/**
+	 * Stops the eviction thread and closes all pooled connections.
+	 * The pool is created again if a new client is requested afterwards.
+	 */
+	public synchronized void dispose() {
+		if (this.evictor != null) {
+			this.evictor.shutdownNow();
+			this.evictor = null;
+		}
+		
+		if (this.connectionManager != null) {
+			this.connectionManager.shutdown();
+			this.connectionManager = null;
+		}
+		
+		this.transport = null;
+	}
+	
+	private void startEvictor() {
+		final ThreadSafeClientConnManager manager = this.connectionManager;
+		
+		this.evictor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("google-drive-connection-evictor"));
+		this.evictor.scheduleWithFixedDelay(new Runnable() {
+			
+			@Override
+			public void run() {
+				manager.closeExpiredConnections();
+				manager.closeIdleConnections(idleConnectionTimeoutSeconds, TimeUnit.SECONDS);
+			}
+		}, this.evictionIntervalSeconds, this.evictionIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	public int getIdleConnectionTimeoutSeconds() {
+		return idleConnectionTimeoutSeconds;
+	}
+
+	public void setIdleConnectionTimeoutSeconds(int idleConnectionTimeoutSeconds) {
+		this.idleConnectionTimeoutSeconds = idleConnectionTimeoutSeconds;
+	}
+
+	public int getEvictionIntervalSeconds() {
+		return evictionIntervalSeconds;
+	}
+
+	public void setEvictionIntervalSeconds(int evictionIntervalSeconds) {
+		this.evictionIntervalSeconds = evictionIntervalSeconds;
+	}
+
+}
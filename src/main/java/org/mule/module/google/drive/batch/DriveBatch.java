@@ -0,0 +1,294 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.mule.module.google.drive.model.BatchResult;
+import org.mule.module.google.drive.throttle.BackoffPolicy;
+import org.mule.module.google.drive.throttle.RateLimiter;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonError.ErrorInfo;
+import com.google.api.client.googleapis.services.json.AbstractGoogleJsonClientRequest;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.drive.Drive;
+
+/**
+ * Template for operations which are applied to a list of items by grouping
+ * the individual requests into batch http requests. Each batch holds up to
+ * {@link #MAX_BATCH_SIZE} requests. A failure on one item does not affect the others,
+ * its details are recorded on the item's result instead.
+ * 
+ * Items which fail because of rate limiting or server errors are retried on a new batch
+ * with exponential backoff. If a whole batch request fails, its items are recorded as failed
+ * with the request's error and the remaining batches are still executed, so the returned results
+ * always tell which items were applied.
+ * 
+ * Drive charges every request of a batch against the quotas, so if a {@link org.mule.module.google.drive.throttle.RateLimiter}
+ * is provided, each batch takes one permit per request it holds and each request's outcome is reported back to it.
+ * 
+ * @param <I> the type of the items the operation is applied to
+ * @param <T> the response type of each individual request
+ * @param <R> the type of the per item results
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public abstract class DriveBatch<I, T, R extends BatchResult> {
+	
+	/**
+	 * Maximum amount of requests the API accepts on a single batch
+	 */
+	public static final int MAX_BATCH_SIZE = 100;
+	
+	private static final BackoffPolicy ITEM_RETRY_POLICY = new BackoffPolicy(3, 1000, 16000);
+	
+	/**
+	 * Creates the request for the given item
+	 */
+	protected abstract AbstractGoogleJsonClientRequest<T> newRequest(I item) throws IOException;
+	
+	/**
+	 * Creates an empty result for the given item
+	 */
+	protected abstract R newResult(I item);
+	
+	/**
+	 * Invoked when the request for an item succeeds. Default implementation does nothing
+	 * 
+	 * @param result the item's result
+	 * @param response the request's response
+	 */
+	protected void onSuccess(R result, T response) {
+	}
+	
+	/**
+	 * Applies the operation over all the items
+	 * 
+	 * @param client the client to use
+	 * @param rateLimiter the rate limiter of the client's user or <code>null</code> if requests are not throttled
+	 * @param items the items to process
+	 * @return a list with one result per item, in the same order as the items
+	 */
+	public List<R> execute(Drive client, RateLimiter rateLimiter, List<I> items) {
+		List<R> results = this.newResults(items);
+		
+		for (int i = 0; i < items.size(); i += MAX_BATCH_SIZE) {
+			int end = Math.min(i + MAX_BATCH_SIZE, items.size());
+			this.executeBatch(client, rateLimiter, items.subList(i, end), results.subList(i, end));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Applies the operation over all the items, executing up to the given
+	 * amount of batch requests concurrently
+	 * 
+	 * @param client the client to use
+	 * @param rateLimiter the rate limiter of the client's user or <code>null</code> if requests are not throttled
+	 * @param items the items to process
+	 * @param concurrency the maximum amount of batch requests in flight
+	 * @return a list with one result per item, in the same order as the items
+	 */
+	public List<R> execute(final Drive client, final RateLimiter rateLimiter, final List<I> items, int concurrency) {
+		if (concurrency <= 1 || items.size() <= MAX_BATCH_SIZE) {
+			return this.execute(client, rateLimiter, items);
+		}
+		
+		final List<R> results = this.newResults(items);
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory("google-drive-batch"));
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		
+		try {
+			for (int i = 0; i < items.size(); i += MAX_BATCH_SIZE) {
+				final int start = i;
+				final int end = Math.min(i + MAX_BATCH_SIZE, items.size());
+				
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						executeBatch(client, rateLimiter, items.subList(start, end), results.subList(start, end));
+						return null;
+					}
+				}));
+			}
+			
+			for (int i = 0; i < futures.size(); i++) {
+				List<R> slice = results.subList(i * MAX_BATCH_SIZE, Math.min((i + 1) * MAX_BATCH_SIZE, results.size()));
+				
+				try {
+					futures.get(i).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					failUnresolved(results, null, "Interrupted while waiting for batch requests");
+					break;
+				} catch (ExecutionException e) {
+					failUnresolved(slice, null, "Batch request failed: " + e.getCause().getMessage());
+				}
+			}
+			
+			return results;
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+			executor.shutdownNow();
+		}
+	}
+	
+	private List<R> newResults(List<I> items) {
+		List<R> results = new ArrayList<R>(items.size());
+		
+		for (I item : items) {
+			results.add(this.newResult(item));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Executes the requests of up to {@link #MAX_BATCH_SIZE} items, retrying the ones which failed
+	 * with a retryable error. Every result has an outcome once this method returns
+	 */
+	private void executeBatch(Drive client, final RateLimiter rateLimiter, List<I> items, List<R> results) {
+		List<Integer> pending = new ArrayList<Integer>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			pending.add(i);
+		}
+		
+		for (int attempt = 0; !pending.isEmpty(); attempt++) {
+			if (attempt > 0) {
+				try {
+					Thread.sleep(ITEM_RETRY_POLICY.delayMillis(attempt - 1));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					failUnresolved(results, null, "Interrupted while retrying batch requests");
+					return;
+				}
+			}
+			
+			final boolean lastAttempt = attempt >= ITEM_RETRY_POLICY.getMaxRetries();
+			final List<Integer> retry = new ArrayList<Integer>();
+			BatchRequest batch = client.batch();
+			int queued = 0;
+			
+			for (final Integer index : pending) {
+				final R result = results.get(index);
+				
+				try {
+					this.newRequest(items.get(index)).queue(batch, new JsonBatchCallback<T>() {
+						
+						@Override
+						public void onSuccess(T response, HttpHeaders responseHeaders) {
+							if (rateLimiter != null) {
+								rateLimiter.succeeded();
+							}
+							
+							result.setSuccessful(true);
+							DriveBatch.this.onSuccess(result, response);
+						}
+						
+						@Override
+						public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+							if (rateLimiter != null && isRateLimitError(error)) {
+								rateLimiter.rateLimited();
+							}
+							
+							if (!lastAttempt && isRetryable(error)) {
+								retry.add(index);
+							} else {
+								fail(result, error.getCode(), error.getMessage());
+							}
+						}
+					});
+					queued++;
+				} catch (IOException e) {
+					fail(result, null, e.getMessage());
+				}
+			}
+			
+			try {
+				if (queued > 0) {
+					if (rateLimiter != null) {
+						rateLimiter.acquire(queued);
+					}
+					
+					batch.execute();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failUnresolved(results, null, "Interrupted while waiting for request permits");
+				return;
+			} catch (IOException e) {
+				failUnresolved(results, e instanceof HttpResponseException ? ((HttpResponseException) e).getStatusCode() : null, e.getMessage());
+				return;
+			}
+			
+			pending = retry;
+		}
+	}
+	
+	/**
+	 * @return whether an item which failed with the given error goes into the next batch
+	 */
+	static boolean isRetryable(GoogleJsonError error) {
+		return error.getCode() >= 500 || isRateLimitError(error);
+	}
+	
+	/**
+	 * @return whether the error is an exceeded quota, reported either as 429 or as 403 with a rate limit reason
+	 */
+	private static boolean isRateLimitError(GoogleJsonError error) {
+		if (error.getCode() == 429) {
+			return true;
+		}
+		
+		if (error.getCode() == 403 && error.getErrors() != null) {
+			for (ErrorInfo info : error.getErrors()) {
+				if ("rateLimitExceeded".equals(info.getReason()) || "userRateLimitExceeded".equals(info.getReason())) {
+					return true;
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	private static void fail(BatchResult result, Integer errorCode, String errorMessage) {
+		result.setSuccessful(false);
+		result.setErrorCode(errorCode);
+		result.setErrorMessage(errorMessage != null ? errorMessage : "Unknown error");
+	}
+	
+	/**
+	 * Records the given error on the results which have no outcome yet
+	 */
+	static void failUnresolved(List<? extends BatchResult> results, Integer errorCode, String errorMessage) {
+		for (BatchResult result : results) {
+			if (!result.isSuccessful() && result.getErrorMessage() == null) {
+				fail(result, errorCode, errorMessage);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,334 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.cache;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.module.google.drive.transfer.ChannelTransfer;
+import org.mule.module.google.drive.transfer.ChecksumMismatchException;
+
+/**
+ * Content addressed cache of downloaded files on the local file system. Each entry is stored
+ * in a file named after the content's md5 checksum, so the same content is only kept once no matter
+ * how many Drive files or users refer to it. The cache is bounded by the total size of its entries and
+ * evicts the least recently used ones first.
+ * 
+ * Concurrent requests for the same checksum share a single download. Since several connector configurations
+ * may point to the same directory, instances are obtained through {@link #forDirectory(String, long)} which
+ * keeps one instance per directory. Each instance obtained that way must be given back through {@link #release()}.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ContentCache {
+	
+	private static final Log logger = LogFactory.getLog(ContentCache.class);
+	
+	private static final Map<String, ContentCache> caches = new HashMap<String, ContentCache>();
+	
+	private static final String TEMP_SUFFIX = ".part";
+	
+	private static final int MAX_OPEN_ATTEMPTS = 3;
+	
+	/**
+	 * Names of entries and of their temporary files. Anything else in the directory is left alone
+	 */
+	private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{32}");
+	private static final Pattern TEMP_NAME = Pattern.compile("[0-9a-f]{32}\\d+" + Pattern.quote(TEMP_SUFFIX));
+	
+	private final File directory;
+	private final long maxBytes;
+	private final Map<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private final ConcurrentMap<String, FutureTask<File>> inFlight = new ConcurrentHashMap<String, FutureTask<File>>();
+	private long totalBytes = 0;
+	private int references = 0;
+	
+	/**
+	 * Returns the cache for the given directory, creating it if needed. If the cache
+	 * already exists, the size limit of the first caller is kept
+	 * 
+	 * @param directory the directory in which entries are stored
+	 * @param maxBytes the maximum total size of the cached entries
+	 * @return a {@link org.mule.module.google.drive.cache.ContentCache}
+	 * @throws IOException if the directory cannot be created
+	 */
+	public static ContentCache forDirectory(String directory, long maxBytes) throws IOException {
+		File dir = new File(directory).getCanonicalFile();
+		
+		synchronized (caches) {
+			ContentCache cache = caches.get(dir.getPath());
+			
+			if (cache == null) {
+				cache = new ContentCache(dir, maxBytes);
+				caches.put(dir.getPath(), cache);
+			}
+			
+			cache.references++;
+			return cache;
+		}
+	}
+	
+	/**
+	 * Gives back an instance obtained through {@link #forDirectory(String, long)}. Once all of them are
+	 * released, the next call to {@link #forDirectory(String, long)} loads the directory again.
+	 * Cached entries are kept on disk
+	 */
+	public void release() {
+		synchronized (caches) {
+			if (this.references > 0 && --this.references == 0) {
+				caches.remove(this.directory.getPath());
+			}
+		}
+	}
+	
+	private ContentCache(File directory, long maxBytes) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create download cache directory " + directory.getPath());
+		}
+		
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.load();
+	}
+	
+	/**
+	 * Registers the entries left by previous executions, oldest first, and removes incomplete ones.
+	 * Files which were not created by the cache are ignored, so they are never evicted
+	 */
+	private void load() {
+		File[] files = this.directory.listFiles();
+		
+		if (files == null) {
+			return;
+		}
+		
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File o1, File o2) {
+				long diff = o1.lastModified() - o2.lastModified();
+				return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+			}
+		});
+		
+		synchronized (this) {
+			for (File file : files) {
+				if (!file.isFile()) {
+					continue;
+				}
+				
+				if (TEMP_NAME.matcher(file.getName()).matches()) {
+					file.delete();
+				} else if (ENTRY_NAME.matcher(file.getName()).matches()) {
+					this.entries.put(file.getName(), file.length());
+					this.totalBytes += file.length();
+				}
+			}
+			
+			this.evict();
+		}
+	}
+	
+	/**
+	 * @return the maximum total size of the cached entries
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * Opens a stream over the cached content with the given checksum. If not present, the content
+	 * is first obtained from the loader and stored. If another thread is already loading the same checksum,
+	 * this method waits for it instead of downloading it again.
+	 * 
+	 * @param md5Checksum the content's md5 checksum
+	 * @param loader callable which opens a stream with the content if it is not cached
+	 * @return a stream backed by a {@link java.nio.channels.FileChannel} over the cached file
+	 * @throws IOException if the content could not be loaded or its checksum didn't match
+	 */
+	public InputStream open(String md5Checksum, Callable<InputStream> loader) throws IOException {
+		final String key = md5Checksum.toLowerCase();
+		
+		if (!ENTRY_NAME.matcher(key).matches()) {
+			throw new IllegalArgumentException("Invalid md5 checksum " + md5Checksum);
+		}
+		
+		FileChannel channel = this.openEntry(key);
+		
+		// the entry could be evicted by a concurrent store between loading and opening it
+		for (int attempt = 1; channel == null && attempt <= MAX_OPEN_ATTEMPTS; attempt++) {
+			this.load(key, loader);
+			channel = this.openEntry(key);
+		}
+		
+		if (channel == null) {
+			throw new IOException("Content " + key + " was evicted from the download cache before it could be read");
+		}
+		
+		return Channels.newInputStream(channel);
+	}
+	
+	/**
+	 * Opens the entry while holding the lock, so that it cannot be evicted in between. Once open,
+	 * the entry can be read even if it is evicted afterwards
+	 * 
+	 * @return a channel over the entry or <code>null</code> if it's not cached
+	 */
+	private synchronized FileChannel openEntry(String key) {
+		if (this.entries.get(key) == null) {
+			return null;
+		}
+		
+		try {
+			return new RandomAccessFile(new File(this.directory, key), "r").getChannel();
+		} catch (FileNotFoundException e) {
+			this.remove(key);
+			return null;
+		}
+	}
+	
+	private File load(final String key, final Callable<InputStream> loader) throws IOException {
+		FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+			
+			@Override
+			public File call() throws Exception {
+				return store(key, loader.call());
+			}
+		});
+		
+		FutureTask<File> current = this.inFlight.putIfAbsent(key, task);
+		
+		if (current == null) {
+			try {
+				task.run();
+			} finally {
+				this.inFlight.remove(key, task);
+			}
+			
+			current = task;
+		}
+		
+		try {
+			return current.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for content " + key);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			
+			throw new IOException("Could not load content " + key, cause);
+		}
+	}
+	
+	private File store(String key, InputStream in) throws IOException {
+		File temp = File.createTempFile(key, TEMP_SUFFIX, this.directory);
+		MessageDigest digest = ChannelTransfer.newMd5();
+		long bytes;
+		
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(temp);
+			bytes = ChannelTransfer.copy(in, out.getChannel(), digest);
+			out.getChannel().force(false);
+		} catch (IOException e) {
+			IOUtils.closeQuietly(out);
+			temp.delete();
+			throw e;
+		} finally {
+			IOUtils.closeQuietly(out);
+			IOUtils.closeQuietly(in);
+		}
+		
+		String actual = ChannelTransfer.toHex(digest);
+		
+		if (!key.equals(actual)) {
+			temp.delete();
+			throw new ChecksumMismatchException("downloaded content", key, actual);
+		}
+		
+		File target = new File(this.directory, key);
+		
+		synchronized (this) {
+			if (!temp.renameTo(target)) {
+				target.delete();
+				
+				if (!temp.renameTo(target)) {
+					temp.delete();
+					throw new IOException("Could not move downloaded content into " + target.getPath());
+				}
+			}
+			
+			Long previous = this.entries.put(key, bytes);
+			this.totalBytes += bytes - (previous != null ? previous : 0);
+			
+			this.evict();
+		}
+		
+		return target;
+	}
+	
+	/**
+	 * Removes least recently used entries until the total size fits. The most recently
+	 * added entry is always kept so that it can be served
+	 */
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+		
+		while (this.totalBytes > this.maxBytes && this.entries.size() > 1 && it.hasNext()) {
+			Map.Entry<String, Long> eldest = it.next();
+			it.remove();
+			this.totalBytes -= eldest.getValue();
+			
+			File file = new File(this.directory, eldest.getKey());
+			if (!file.delete() && logger.isDebugEnabled()) {
+				logger.debug("Could not delete evicted cache entry " + file.getPath());
+			}
+		}
+	}
+	
+	private synchronized void remove(String key) {
+		Long size = this.entries.remove(key);
+		
+		if (size != null) {
+			this.totalBytes -= size;
+		}
+	}
+
+}
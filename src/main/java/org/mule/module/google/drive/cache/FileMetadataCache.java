@@ -0,0 +1,141 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * Bounded, least recently used cache of file metadata keyed by file id.
+ * Entries fetched within the freshness window are served without contacting the server.
+ * Older entries are kept along with their etag so that they can be revalidated
+ * with a conditional request.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class FileMetadataCache {
+	
+	private final long freshnessMillis;
+	private final Map<String, CachedFile> entries;
+	
+	private final AtomicLong hits = new AtomicLong(0);
+	private final AtomicLong revalidations = new AtomicLong(0);
+	private final AtomicLong misses = new AtomicLong(0);
+	
+	/**
+	 * @param maxSize the maximum amount of files to keep
+	 * @param freshnessSeconds for how long after being fetched an entry can be served without revalidation
+	 */
+	public FileMetadataCache(final int maxSize, int freshnessSeconds) {
+		this.freshnessMillis = freshnessSeconds * 1000L;
+		this.entries = new LinkedHashMap<String, CachedFile>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = -3373005436426296062L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedFile> eldest) {
+				return this.size() > maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * @param fileId the file's id
+	 * @return the cached entry or <code>null</code> if not present
+	 */
+	public synchronized CachedFile get(String fileId) {
+		return this.entries.get(fileId);
+	}
+	
+	/**
+	 * Caches a freshly fetched file
+	 * 
+	 * @param file the file to cache
+	 */
+	public synchronized void put(File file) {
+		this.entries.put(file.getId(), new CachedFile(file.clone(), System.currentTimeMillis()));
+	}
+	
+	/**
+	 * Marks the entry as valid again after the server confirmed it has not changed
+	 * 
+	 * @param entry the revalidated entry
+	 */
+	public synchronized void revalidated(CachedFile entry) {
+		this.entries.put(entry.file.getId(), new CachedFile(entry.file, System.currentTimeMillis()));
+		this.revalidations.incrementAndGet();
+	}
+	
+	public synchronized void invalidate(String fileId) {
+		this.entries.remove(fileId);
+	}
+	
+	public void hit() {
+		this.hits.incrementAndGet();
+	}
+	
+	public void miss() {
+		this.misses.incrementAndGet();
+	}
+	
+	/**
+	 * @return a map with the amount of hits (served without contacting the server), revalidations
+	 * (served after the server answered not modified), misses (full fetch) and current size
+	 */
+	public synchronized Map<String, Long> getStatistics() {
+		Map<String, Long> statistics = new HashMap<String, Long>();
+		statistics.put("hits", this.hits.get());
+		statistics.put("revalidations", this.revalidations.get());
+		statistics.put("misses", this.misses.get());
+		statistics.put("size", (long) this.entries.size());
+		
+		return statistics;
+	}
+	
+	/**
+	 * A cached file along with the time it was last confirmed to be current
+	 */
+	public class CachedFile {
+		
+		private final File file;
+		private final long validatedAt;
+		
+		private CachedFile(File file, long validatedAt) {
+			this.file = file;
+			this.validatedAt = validatedAt;
+		}
+		
+		/**
+		 * @return whether the entry can be served without revalidation
+		 */
+		public boolean isFresh() {
+			return System.currentTimeMillis() - this.validatedAt < freshnessMillis;
+		}
+		
+		/**
+		 * @return a copy of the cached file
+		 */
+		public File getFile() {
+			return this.file.clone();
+		}
+		
+		public String getEtag() {
+			return this.file.getEtag();
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used cache which maps a (parent id, title) pair
+ * into the id of the matching child. Entries expire after a fixed time to live.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class PathCache {
+	
+	private final long ttlMillis;
+	private final Map<Key, Entry> entries;
+	
+	/**
+	 * @param maxSize the maximum amount of entries to keep
+	 * @param ttlSeconds how long each entry is valid for
+	 */
+	public PathCache(final int maxSize, int ttlSeconds) {
+		this.ttlMillis = ttlSeconds * 1000L;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 4219640498329431470L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return this.size() > maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * @param parentId the id of the parent folder
+	 * @param title the child's title
+	 * @return the child's id or <code>null</code> if not present or expired
+	 */
+	public synchronized String get(String parentId, String title) {
+		Key key = new Key(parentId, title);
+		Entry entry = this.entries.get(key);
+		
+		if (entry == null) {
+			return null;
+		}
+		
+		if (entry.expiration < System.currentTimeMillis()) {
+			this.entries.remove(key);
+			return null;
+		}
+		
+		return entry.childId;
+	}
+	
+	public synchronized void put(String parentId, String title, String childId) {
+		this.entries.put(new Key(parentId, title), new Entry(childId, System.currentTimeMillis() + this.ttlMillis));
+	}
+	
+	/**
+	 * Removes all entries pointing to the given file and all the entries of its children,
+	 * since they could have changed their path
+	 * 
+	 * @param fileId the id of the file that changed
+	 */
+	public synchronized void invalidate(String fileId) {
+		for (Iterator<Map.Entry<Key, Entry>> it = this.entries.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Key, Entry> entry = it.next();
+			
+			if (fileId.equals(entry.getValue().childId) || fileId.equals(entry.getKey().parentId)) {
+				it.remove();
+			}
+		}
+	}
+	
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+	
+	private static class Key {
+		
+		private final String parentId;
+		private final String title;
+		
+		private Key(String parentId, String title) {
+			this.parentId = parentId;
+			this.title = title;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * this.parentId.hashCode() + this.title.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			
+			Key other = (Key) obj;
+			return this.parentId.equals(other.parentId) && this.title.equals(other.title);
+		}
+	}
+	
+	private static class Entry {
+		
+		private final String childId;
+		private final long expiration;
+		
+		private Entry(String childId, long expiration) {
+			this.childId = childId;
+			this.expiration = expiration;
+		}
+	}
+
+}
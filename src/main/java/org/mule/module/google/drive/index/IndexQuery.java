@@ -0,0 +1,152 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.ParentReference;
+
+/**
+ * Criteria for looking up files in a {@link org.mule.module.google.drive.index.MetadataIndex}.
+ * All the provided criteria must match. Criteria left as <code>null</code> are ignored
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class IndexQuery {
+	
+	private String id;
+	private String parentId;
+	private String titlePrefix;
+	private String mimeType;
+	private Date modifiedAfter;
+	private Date modifiedBefore;
+	
+	/**
+	 * @return whether at least one criterion was provided
+	 */
+	public boolean hasCriteria() {
+		return id != null || parentId != null || titlePrefix != null || mimeType != null || modifiedAfter != null || modifiedBefore != null;
+	}
+
+	/**
+	 * Tells if a file fetched from the API matches all the criteria
+	 * 
+	 * @param file the file's metadata. It must include its id, title, mime type, modified date and parents
+	 * @return whether the file matches
+	 */
+	public boolean matches(File file) {
+		List<String> parentIds = new ArrayList<String>();
+		
+		if (file.getParents() != null) {
+			for (ParentReference parent : file.getParents()) {
+				parentIds.add(parent.getId());
+				
+				if (Boolean.TRUE.equals(parent.getIsRoot())) {
+					parentIds.add("root");
+				}
+			}
+		}
+		
+		return this.matches(file.getId(), file.getTitle(), file.getMimeType(),
+				file.getModifiedDate() != null ? file.getModifiedDate().getValue() : null, parentIds);
+	}
+	
+	/**
+	 * Tells if a file with the given attributes matches all the criteria
+	 * 
+	 * @param fileId the file's id
+	 * @param title the file's title
+	 * @param fileMimeType the file's mime type
+	 * @param modifiedDate the file's modified date in milliseconds since the epoch
+	 * @param parentIds the ids of the file's parents, including <code>root</code> if the file is in the root folder
+	 * @return whether the file matches
+	 */
+	public boolean matches(String fileId, String title, String fileMimeType, Long modifiedDate, Collection<String> parentIds) {
+		if (this.id != null && !this.id.equals(fileId)) {
+			return false;
+		}
+		
+		if (this.parentId != null && !parentIds.contains(this.parentId)) {
+			return false;
+		}
+		
+		if (this.mimeType != null && !this.mimeType.equals(fileMimeType)) {
+			return false;
+		}
+		
+		if (this.titlePrefix != null && (title == null || !title.toLowerCase().startsWith(this.titlePrefix.toLowerCase()))) {
+			return false;
+		}
+		
+		if (this.modifiedAfter != null && (modifiedDate == null || modifiedDate <= this.modifiedAfter.getTime())) {
+			return false;
+		}
+		
+		if (this.modifiedBefore != null && (modifiedDate == null || modifiedDate >= this.modifiedBefore.getTime())) {
+			return false;
+		}
+		
+		return true;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getParentId() {
+		return parentId;
+	}
+
+	public void setParentId(String parentId) {
+		this.parentId = parentId;
+	}
+
+	public String getTitlePrefix() {
+		return titlePrefix;
+	}
+
+	public void setTitlePrefix(String titlePrefix) {
+		this.titlePrefix = titlePrefix;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public void setMimeType(String mimeType) {
+		this.mimeType = mimeType;
+	}
+
+	public Date getModifiedAfter() {
+		return modifiedAfter;
+	}
+
+	public void setModifiedAfter(Date modifiedAfter) {
+		this.modifiedAfter = modifiedAfter;
+	}
+
+	public Date getModifiedBefore() {
+		return modifiedBefore;
+	}
+
+	public void setModifiedBefore(Date modifiedBefore) {
+		this.modifiedBefore = modifiedBefore;
+	}
+
+}
@@ -0,0 +1,824 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.module.google.drive.model.Change;
+import org.mule.module.google.drive.sync.ChangeBatch;
+import org.mule.module.google.drive.sync.ChangeSyncEngine;
+import org.mule.module.google.drive.sync.WatermarkStore;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.About;
+import com.google.api.services.drive.model.FileList;
+import com.google.api.services.drive.model.ParentReference;
+
+/**
+ * Local mirror of the metadata of all the non trashed files of a user, which answers lookups by id, parent,
+ * title prefix, mime type and modified date from memory.
+ *
+ * Only the attributes in {@link #FILE_FIELDS} are requested and kept for each file, as plain values rather than
+ * full resources, so files returned by the index only carry those attributes. The index is bootstrapped by streaming
+ * a full listing of the user's files page by page and then kept current by applying the user's change feed.
+ *
+ * State is persisted in two files: a compact snapshot and a journal to which each applied batch of changes is appended
+ * along with its watermark. After a restart, the journal is replayed on top of the snapshot, discarding a trailing batch
+ * which was not completely written. Once the journal grows past the size of the index, it is folded into a new snapshot.
+ *
+ * Instances are shared per snapshot file through {@link #forFile(File)} and must be given back through {@link #release()}.
+ * This class is thread safe. Lookups can run concurrently and only block while fetched changes are applied, never while
+ * they are fetched. Refreshes are serialized so a single thread writes the files, and a refresh requested while another
+ * one is running returns at once, leaving the lookup to be answered from the current state. A directory must not be
+ * shared by several processes
+ *
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class MetadataIndex {
+	
+	private static final Log logger = LogFactory.getLog(MetadataIndex.class);
+	
+	/**
+	 * The attributes kept for each file
+	 */
+	public static final String FILE_FIELDS = "id,etag,title,mimeType,modifiedDate,fileSize,md5Checksum,parents(id,isRoot)";
+	
+	private static final String LIST_FIELDS = "nextPageToken,items(" + FILE_FIELDS + ")";
+	private static final int PAGE_SIZE = 1000;
+	private static final String WATERMARK_KEY = "index";
+	
+	private static final int MAGIC = 0x47444958;
+	private static final int VERSION = 1;
+	private static final int MIN_COMPACTION_RECORDS = 10000;
+	
+	private static final byte PUT = 'P';
+	private static final byte REMOVE = 'R';
+	private static final byte COMMIT = 'C';
+	
+	private static final Map<String, MetadataIndex> indexes = new HashMap<String, MetadataIndex>();
+	
+	private final File snapshotFile;
+	private final File journalFile;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Lock writerLock = new ReentrantLock();
+	
+	private final Map<String, Entry> byId = new HashMap<String, Entry>();
+	private final Map<String, Set<String>> byParent = new HashMap<String, Set<String>>();
+	private final Map<String, Set<String>> byMimeType = new HashMap<String, Set<String>>();
+	private final TreeMap<String, Set<String>> byTitle = new TreeMap<String, Set<String>>();
+	private final TreeMap<Long, Set<String>> byModifiedDate = new TreeMap<Long, Set<String>>();
+	
+	private volatile Long watermark;
+	private volatile long lastRefresh = 0;
+	private int journalRecords = 0;
+	private int references = 0;
+	
+	/**
+	 * Returns the index persisted in the given file, opening it if needed
+	 *
+	 * @param snapshotFile the file in which the index is persisted
+	 * @return a {@link org.mule.module.google.drive.index.MetadataIndex}
+	 * @throws IOException if the file's path could not be resolved
+	 */
+	public static MetadataIndex forFile(File snapshotFile) throws IOException {
+		File file = snapshotFile.getCanonicalFile();
+		
+		synchronized (indexes) {
+			MetadataIndex index = indexes.get(file.getPath());
+			
+			if (index == null) {
+				index = new MetadataIndex(file);
+				indexes.put(file.getPath(), index);
+			}
+			
+			index.references++;
+			return index;
+		}
+	}
+	
+	/**
+	 * Gives back an instance obtained through {@link #forFile(File)}. Once all of them are released,
+	 * the index is dropped from memory. Its files are kept
+	 */
+	public void release() {
+		synchronized (indexes) {
+			if (this.references > 0 && --this.references == 0) {
+				indexes.remove(this.snapshotFile.getPath());
+			}
+		}
+	}
+	
+	private MetadataIndex(File snapshotFile) {
+		this.snapshotFile = snapshotFile;
+		this.journalFile = new File(snapshotFile.getPath() + ".journal");
+		
+		try {
+			this.load();
+		} catch (IOException e) {
+			logger.warn("Discarding unreadable metadata index " + snapshotFile.getPath() + ". It will be rebuilt", e);
+			this.watermark = null;
+			this.clear();
+			this.snapshotFile.delete();
+			this.journalFile.delete();
+		}
+	}
+	
+	/**
+	 * Brings the index up to date. If it was never built, all the user's files are listed. Otherwise,
+	 * the changes since the last refresh are applied. Nothing is done if the last refresh happened less than
+	 * maxAgeMillis ago, or if the index is built and another thread is already refreshing it
+	 *
+	 * @param client the client of the user which files are indexed
+	 * @param maxAgeMillis how old the index can be before it needs to be refreshed
+	 * @throws IOException in case of connection issues
+	 */
+	public void refresh(Drive client, long maxAgeMillis) throws IOException {
+		if (this.isFresh(maxAgeMillis)) {
+			return;
+		}
+		
+		if (this.watermark != null) {
+			if (!this.writerLock.tryLock()) {
+				return;
+			}
+		} else {
+			this.writerLock.lock();
+		}
+		
+		try {
+			if (this.isFresh(maxAgeMillis)) {
+				return;
+			}
+			
+			if (this.watermark == null) {
+				this.bootstrap(client);
+			} else {
+				this.applyChanges(client);
+			}
+			
+			this.lastRefresh = System.currentTimeMillis();
+		} finally {
+			this.writerLock.unlock();
+		}
+	}
+	
+	private boolean isFresh(long maxAgeMillis) {
+		return this.watermark != null && System.currentTimeMillis() - this.lastRefresh < maxAgeMillis;
+	}
+	
+	/**
+	 * @param query the lookup criteria. At least one criterion must be provided
+	 * @param maxResults the maximum amount of files to return
+	 * @return the matching files, carrying only the attributes in {@link #FILE_FIELDS}
+	 */
+	public List<com.google.api.services.drive.model.File> query(IndexQuery query, int maxResults) {
+		if (!query.hasCriteria()) {
+			throw new IllegalArgumentException("At least one criterion is required to query the index");
+		}
+		
+		List<com.google.api.services.drive.model.File> files = new ArrayList<com.google.api.services.drive.model.File>();
+		
+		this.lock.readLock().lock();
+		try {
+			for (String id : this.candidates(query)) {
+				Entry entry = this.byId.get(id);
+				
+				if (entry != null && query.matches(entry.id, entry.title, entry.mimeType, entry.modifiedDate, entry.parentIds())) {
+					files.add(entry.toFile());
+					
+					if (files.size() >= maxResults) {
+						break;
+					}
+				}
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		
+		return files;
+	}
+	
+	/**
+	 * @return the amount of indexed files
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.byId.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Returns the ids to check against the query. Exact criteria (parent and mime type) select a set of known size,
+	 * so the smallest one is used. Otherwise the ids in the title prefix range or, failing that, the modified date range
+	 * are iterated in place, so that a query only visits entries until it has enough results
+	 */
+	private Iterable<String> candidates(IndexQuery query) {
+		if (query.getId() != null) {
+			return Collections.singleton(query.getId());
+		}
+		
+		Set<String> smallest = null;
+		boolean exact = false;
+		
+		if (query.getParentId() != null) {
+			smallest = smallest(smallest, this.byParent.get(query.getParentId()));
+			exact = true;
+		}
+		
+		if (query.getMimeType() != null) {
+			smallest = smallest(smallest, this.byMimeType.get(query.getMimeType()));
+			exact = true;
+		}
+		
+		if (exact) {
+			return smallest;
+		}
+		
+		if (query.getTitlePrefix() != null) {
+			String prefix = query.getTitlePrefix().toLowerCase();
+			return flatten(this.byTitle.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values());
+		}
+		
+		long from = query.getModifiedAfter() != null ? query.getModifiedAfter().getTime() : Long.MIN_VALUE;
+		long to = query.getModifiedBefore() != null ? query.getModifiedBefore().getTime() : Long.MAX_VALUE;
+		
+		return from < to ? flatten(this.byModifiedDate.subMap(from, false, to, false).values()) : Collections.<String>emptySet();
+	}
+	
+	private static Set<String> smallest(Set<String> current, Set<String> candidate) {
+		if (candidate == null) {
+			return Collections.<String>emptySet();
+		}
+		
+		return current == null || candidate.size() < current.size() ? candidate : current;
+	}
+	
+	/**
+	 * Iterates the ids of several sets in order without copying them. Each file has a single title
+	 * and modified date, so the sets of a range index never share ids
+	 */
+	private static Iterable<String> flatten(final Collection<Set<String>> sets) {
+		return new Iterable<String>() {
+			
+			@Override
+			public Iterator<String> iterator() {
+				final Iterator<Set<String>> outer = sets.iterator();
+				
+				return new Iterator<String>() {
+					
+					private Iterator<String> inner = Collections.<String>emptySet().iterator();
+					
+					@Override
+					public boolean hasNext() {
+						while (!this.inner.hasNext() && outer.hasNext()) {
+							this.inner = outer.next().iterator();
+						}
+						
+						return this.inner.hasNext();
+					}
+					
+					@Override
+					public String next() {
+						if (!this.hasNext()) {
+							throw new NoSuchElementException();
+						}
+						
+						return this.inner.next();
+					}
+					
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Lists all the user's files, adding each page to the index as it arrives, and then writes the snapshot.
+	 * The change feed is read from the largest change id taken before listing, so changes made while listing
+	 * are applied on the next refresh
+	 */
+	private void bootstrap(Drive client) throws IOException {
+		About about = client.about().get().setFields("largestChangeId").execute();
+		String token = null;
+		
+		this.lock.writeLock().lock();
+		try {
+			this.clear();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		do {
+			FileList response = client.files().list()
+					.setMaxResults(PAGE_SIZE)
+					.setQ("trashed = false")
+					.setFields(LIST_FIELDS)
+					.setPageToken(token)
+					.execute();
+			
+			if (response.getItems() != null) {
+				this.lock.writeLock().lock();
+				try {
+					for (com.google.api.services.drive.model.File file : response.getItems()) {
+						this.put(new Entry(file));
+					}
+				} finally {
+					this.lock.writeLock().unlock();
+				}
+			}
+			
+			token = response.getNextPageToken();
+		} while (token != null);
+		
+		this.watermark = about.getLargestChangeId();
+		this.writeSnapshot();
+		
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("Metadata index bootstrapped with %d files up to change %d", this.size(), this.watermark));
+		}
+	}
+	
+	/**
+	 * Fetches the changes after the watermark, appends them to the journal and then applies them.
+	 * Only the application of the changes blocks lookups
+	 */
+	private void applyChanges(Drive client) throws IOException {
+		ChangeSyncEngine engine = new ChangeSyncEngine(client, new WatermarkStore() {
+			
+			@Override
+			public Long retrieve(String key) {
+				return watermark;
+			}
+			
+			@Override
+			public void store(String key, Long changeId) {
+				watermark = changeId;
+			}
+		}, WATERMARK_KEY, true, PAGE_SIZE, 2, Integer.MAX_VALUE);
+		
+		ChangeBatch batch = engine.poll();
+		
+		if (batch.getChanges().isEmpty()) {
+			return;
+		}
+		
+		List<Object> records = new ArrayList<Object>(batch.getChanges().size());
+		
+		for (Change change : batch.getChanges()) {
+			com.google.api.services.drive.model.File file = change.wrapped().getFile();
+			boolean trashed = file != null && file.getLabels() != null && Boolean.TRUE.equals(file.getLabels().getTrashed());
+			
+			if (!Boolean.TRUE.equals(change.getDeleted()) && file != null && !trashed) {
+				records.add(new Entry(file));
+			} else if (change.getFileId() != null) {
+				records.add(change.getFileId());
+			}
+		}
+		
+		this.appendToJournal(records, batch.getWatermark());
+		
+		this.lock.writeLock().lock();
+		try {
+			for (Object record : records) {
+				this.apply(record);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		this.journalRecords += records.size();
+		
+		engine.commit(batch);
+		
+		if (this.journalRecords > Math.max(MIN_COMPACTION_RECORDS, this.size())) {
+			this.writeSnapshot();
+		}
+	}
+	
+	/**
+	 * Appends a batch of records followed by its commit in a single write. If the write fails, the journal is truncated
+	 * back to where the batch started, so that later batches are not appended after a partial one
+	 */
+	private void appendToJournal(List<Object> records, long batchWatermark) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		
+		for (Object record : records) {
+			if (record instanceof Entry) {
+				out.writeByte(PUT);
+				((Entry) record).write(out);
+			} else {
+				out.writeByte(REMOVE);
+				out.writeUTF((String) record);
+			}
+		}
+		
+		out.writeByte(COMMIT);
+		out.writeLong(batchWatermark);
+		
+		long committedLength = this.journalFile.length();
+		FileOutputStream journal = new FileOutputStream(this.journalFile, true);
+		
+		try {
+			buffer.writeTo(journal);
+			journal.flush();
+		} catch (IOException e) {
+			IOUtils.closeQuietly(journal);
+			this.truncateJournal(committedLength);
+			throw e;
+		} finally {
+			IOUtils.closeQuietly(journal);
+		}
+	}
+	
+	private void truncateJournal(long length) {
+		RandomAccessFile file = null;
+		
+		try {
+			file = new RandomAccessFile(this.journalFile, "rw");
+			file.setLength(length);
+		} catch (IOException e) {
+			logger.warn("Could not truncate metadata index journal " + this.journalFile.getPath() + " after a failed append", e);
+		} finally {
+			IOUtils.closeQuietly(file);
+		}
+	}
+	
+	private void apply(Object record) {
+		if (record instanceof Entry) {
+			this.put((Entry) record);
+		} else {
+			this.remove((String) record);
+		}
+	}
+	
+	private void put(Entry entry) {
+		this.remove(entry.id);
+		this.byId.put(entry.id, entry);
+		
+		for (String parentId : entry.parentIds()) {
+			add(this.byParent, parentId, entry.id);
+		}
+		
+		if (entry.mimeType != null) {
+			add(this.byMimeType, entry.mimeType, entry.id);
+		}
+		
+		if (entry.title != null) {
+			add(this.byTitle, entry.title.toLowerCase(), entry.id);
+		}
+		
+		if (entry.modifiedDate != null) {
+			add(this.byModifiedDate, entry.modifiedDate, entry.id);
+		}
+	}
+	
+	private void remove(String id) {
+		Entry entry = id != null ? this.byId.remove(id) : null;
+		
+		if (entry == null) {
+			return;
+		}
+		
+		for (String parentId : entry.parentIds()) {
+			remove(this.byParent, parentId, id);
+		}
+		
+		remove(this.byMimeType, entry.mimeType, id);
+		remove(this.byTitle, entry.title != null ? entry.title.toLowerCase() : null, id);
+		remove(this.byModifiedDate, entry.modifiedDate, id);
+	}
+	
+	private void clear() {
+		this.byId.clear();
+		this.byParent.clear();
+		this.byMimeType.clear();
+		this.byTitle.clear();
+		this.byModifiedDate.clear();
+	}
+	
+	private static <K> void add(Map<K, Set<String>> index, K key, String id) {
+		Set<String> ids = index.get(key);
+		
+		if (ids == null) {
+			ids = new HashSet<String>();
+			index.put(key, ids);
+		}
+		
+		ids.add(id);
+	}
+	
+	private static <K> void remove(Map<K, Set<String>> index, K key, String id) {
+		if (key == null) {
+			return;
+		}
+		
+		Set<String> ids = index.get(key);
+		
+		if (ids != null) {
+			ids.remove(id);
+			
+			if (ids.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the whole index into a new temporary file which then replaces the snapshot, and discards the journal.
+	 * Only invoked while loading or holding the writer lock
+	 */
+	private void writeSnapshot() throws IOException {
+		File temp = File.createTempFile(this.snapshotFile.getName(), ".tmp", this.snapshotFile.getParentFile());
+		FileOutputStream fileOut = new FileOutputStream(temp);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+		
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(this.watermark);
+			
+			this.lock.readLock().lock();
+			try {
+				out.writeInt(this.byId.size());
+				
+				for (Entry entry : this.byId.values()) {
+					entry.write(out);
+				}
+			} finally {
+				this.lock.readLock().unlock();
+			}
+			
+			out.flush();
+			fileOut.getChannel().force(false);
+		} catch (IOException e) {
+			IOUtils.closeQuietly(out);
+			temp.delete();
+			throw e;
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		
+		if (!temp.renameTo(this.snapshotFile)) {
+			this.snapshotFile.delete();
+			
+			if (!temp.renameTo(this.snapshotFile)) {
+				temp.delete();
+				throw new IOException("Could not write metadata index snapshot " + this.snapshotFile.getPath());
+			}
+		}
+		
+		// the journal only holds changes which are already in the snapshot, replaying it would be harmless
+		this.journalFile.delete();
+		this.journalRecords = 0;
+	}
+	
+	private void load() throws IOException {
+		if (!this.snapshotFile.isFile()) {
+			this.journalFile.delete();
+			return;
+		}
+		
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.snapshotFile)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Unsupported metadata index format");
+			}
+			
+			this.watermark = in.readLong();
+			
+			for (int count = in.readInt(); count > 0; count--) {
+				this.put(Entry.read(in));
+			}
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		
+		if (this.journalFile.isFile()) {
+			this.replayJournal();
+			
+			// fold the journal so that no batch is appended after a partially written one
+			this.writeSnapshot();
+		}
+	}
+	
+	/**
+	 * Applies the batches in the journal. Records after the last commit belong to a batch which was not
+	 * completely written, so they are discarded and those changes are fetched again on the next refresh
+	 */
+	private void replayJournal() throws IOException {
+		List<Object> pending = new ArrayList<Object>();
+		
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.journalFile)));
+		try {
+			while (true) {
+				byte type = in.readByte();
+				
+				if (type == PUT) {
+					pending.add(Entry.read(in));
+				} else if (type == REMOVE) {
+					pending.add(in.readUTF());
+				} else if (type == COMMIT) {
+					this.watermark = in.readLong();
+					
+					for (Object record : pending) {
+						this.apply(record);
+					}
+					
+					this.journalRecords += pending.size();
+					pending.clear();
+				} else {
+					throw new IOException("Corrupt metadata index journal " + this.journalFile.getPath());
+				}
+			}
+		} catch (EOFException e) {
+			// end of the journal
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+	
+	/**
+	 * The attributes kept for an indexed file
+	 */
+	private static class Entry {
+		
+		private String id;
+		private String etag;
+		private String title;
+		private String mimeType;
+		private Long modifiedDate;
+		private Long fileSize;
+		private String md5Checksum;
+		private String[] parents;
+		private String rootParent;
+		
+		private Entry() {
+		}
+		
+		private Entry(com.google.api.services.drive.model.File file) {
+			this.id = file.getId();
+			this.etag = file.getEtag();
+			this.title = file.getTitle();
+			this.mimeType = file.getMimeType();
+			this.modifiedDate = file.getModifiedDate() != null ? file.getModifiedDate().getValue() : null;
+			this.fileSize = file.getFileSize();
+			this.md5Checksum = file.getMd5Checksum();
+			
+			List<ParentReference> references = file.getParents() != null ? file.getParents() : Collections.<ParentReference>emptyList();
+			this.parents = new String[references.size()];
+			
+			for (int i = 0; i < this.parents.length; i++) {
+				ParentReference parent = references.get(i);
+				this.parents[i] = parent.getId();
+				
+				if (Boolean.TRUE.equals(parent.getIsRoot())) {
+					this.rootParent = parent.getId();
+				}
+			}
+		}
+		
+		/**
+		 * @return the ids of the file's parents, including the root alias if the file is in the root folder
+		 */
+		private Collection<String> parentIds() {
+			if (this.rootParent == null) {
+				return Arrays.asList(this.parents);
+			}
+			
+			List<String> ids = new ArrayList<String>(Arrays.asList(this.parents));
+			ids.add("root");
+			
+			return ids;
+		}
+		
+		private com.google.api.services.drive.model.File toFile() {
+			com.google.api.services.drive.model.File file = new com.google.api.services.drive.model.File();
+			file.setId(this.id);
+			file.setEtag(this.etag);
+			file.setTitle(this.title);
+			file.setMimeType(this.mimeType);
+			file.setModifiedDate(this.modifiedDate != null ? new DateTime(this.modifiedDate) : null);
+			file.setFileSize(this.fileSize);
+			file.setMd5Checksum(this.md5Checksum);
+			
+			List<ParentReference> references = new ArrayList<ParentReference>(this.parents.length);
+			for (String parentId : this.parents) {
+				ParentReference parent = new ParentReference();
+				parent.setId(parentId);
+				parent.setIsRoot(parentId.equals(this.rootParent));
+				references.add(parent);
+			}
+			
+			file.setParents(references);
+			
+			return file;
+		}
+		
+		private void write(DataOutputStream out) throws IOException {
+			out.writeUTF(this.id);
+			writeString(out, this.etag);
+			writeString(out, this.title);
+			writeString(out, this.mimeType);
+			writeLong(out, this.modifiedDate);
+			writeLong(out, this.fileSize);
+			writeString(out, this.md5Checksum);
+			
+			out.writeShort(this.parents.length);
+			for (String parent : this.parents) {
+				out.writeUTF(parent);
+			}
+			
+			writeString(out, this.rootParent);
+		}
+		
+		private static Entry read(DataInputStream in) throws IOException {
+			Entry entry = new Entry();
+			entry.id = in.readUTF();
+			entry.etag = readString(in);
+			entry.title = readString(in);
+			entry.mimeType = readString(in);
+			entry.modifiedDate = readLong(in);
+			entry.fileSize = readLong(in);
+			entry.md5Checksum = readString(in);
+			
+			entry.parents = new String[in.readShort()];
+			for (int i = 0; i < entry.parents.length; i++) {
+				entry.parents[i] = in.readUTF();
+			}
+			
+			entry.rootParent = readString(in);
+			
+			return entry;
+		}
+		
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			out.writeBoolean(value != null);
+			
+			if (value != null) {
+				out.writeUTF(value);
+			}
+		}
+		
+		private static String readString(DataInputStream in) throws IOException {
+			return in.readBoolean() ? in.readUTF() : null;
+		}
+		
+		private static void writeLong(DataOutputStream out, Long value) throws IOException {
+			out.writeBoolean(value != null);
+			
+			if (value != null) {
+				out.writeLong(value);
+			}
+		}
+		
+		private static Long readLong(DataInputStream in) throws IOException {
+			return in.readBoolean() ? in.readLong() : null;
+		}
+	}
+
+}
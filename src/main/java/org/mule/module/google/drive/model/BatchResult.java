@@ -0,0 +1,69 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.model;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of a single item of a batch operation. The batch as a whole does not
+ * fail when an item does, so each item carries its own success flag and error details
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class BatchResult implements Serializable {
+
+	private static final long serialVersionUID = 5327604183727553434L;
+
+	private String id;
+	private boolean successful;
+	private Integer errorCode;
+	private String errorMessage;
+	
+	public BatchResult() {
+	}
+	
+	public BatchResult(String id) {
+		this.id = id;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	public void setSuccessful(boolean successful) {
+		this.successful = successful;
+	}
+
+	public Integer getErrorCode() {
+		return errorCode;
+	}
+
+	public void setErrorCode(Integer errorCode) {
+		this.errorCode = errorCode;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	public void setErrorMessage(String errorMessage) {
+		this.errorMessage = errorMessage;
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.model;
+
+import java.io.InputStream;
+
+/**
+ * Describes the outcome of a conditional download. If the file was not modified
+ * since the version the caller already had, no content is opened
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ConditionalDownloadResult {
+
+	private boolean modified;
+	private File file;
+	private InputStream content;
+	
+	public ConditionalDownloadResult() {
+	}
+	
+	public ConditionalDownloadResult(boolean modified, File file, InputStream content) {
+		this.modified = modified;
+		this.file = file;
+		this.content = content;
+	}
+
+	/**
+	 * @return whether the remote file differs from the version the caller had
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	public void setModified(boolean modified) {
+		this.modified = modified;
+	}
+
+	/**
+	 * @return the file's current metadata
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public void setFile(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the file's content, or <code>null</code> if it was not modified
+	 */
+	public InputStream getContent() {
+		return content;
+	}
+
+	public void setContent(InputStream content) {
+		this.content = content;
+	}
+
+}
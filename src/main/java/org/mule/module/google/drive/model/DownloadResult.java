@@ -0,0 +1,62 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.model;
+
+import java.io.Serializable;
+
+/**
+ * Describes the outcome of downloading a file into the local file system
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class DownloadResult implements Serializable {
+
+	private static final long serialVersionUID = -2838014741935361374L;
+
+	private String path;
+	private long bytes;
+	private String md5Checksum;
+	
+	public DownloadResult() {
+	}
+	
+	public DownloadResult(String path, long bytes, String md5Checksum) {
+		this.path = path;
+		this.bytes = bytes;
+		this.md5Checksum = md5Checksum;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	public String getMd5Checksum() {
+		return md5Checksum;
+	}
+
+	public void setMd5Checksum(String md5Checksum) {
+		this.md5Checksum = md5Checksum;
+	}
+
+}
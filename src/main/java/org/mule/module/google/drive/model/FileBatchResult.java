@@ -0,0 +1,43 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.model;
+
+/**
+ * Outcome of a batch operation over a single file
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class FileBatchResult extends BatchResult {
+
+	private static final long serialVersionUID = -6017826412406413578L;
+	
+	private File file;
+	
+	public FileBatchResult() {
+	}
+	
+	public FileBatchResult(String fileId) {
+		super(fileId);
+	}
+
+	/**
+	 * @return the file's state after the operation or <code>null</code> if the operation
+	 * failed or does not return a file (such as delete)
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	public void setFile(File file) {
+		this.file = file;
+	}
+
+}
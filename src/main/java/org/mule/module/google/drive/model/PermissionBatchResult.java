@@ -0,0 +1,56 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.model;
+
+/**
+ * Outcome of granting a permission on a file as part of a batch operation.
+ * The id of the result is the id of the file
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class PermissionBatchResult extends BatchResult {
+
+	private static final long serialVersionUID = 2236870787420466436L;
+	
+	private Permission requestedPermission;
+	private Permission permission;
+	
+	public PermissionBatchResult() {
+	}
+	
+	public PermissionBatchResult(String fileId, Permission requestedPermission) {
+		super(fileId);
+		this.requestedPermission = requestedPermission;
+	}
+
+	/**
+	 * @return the permission that was requested to be granted
+	 */
+	public Permission getRequestedPermission() {
+		return requestedPermission;
+	}
+
+	public void setRequestedPermission(Permission requestedPermission) {
+		this.requestedPermission = requestedPermission;
+	}
+
+	/**
+	 * @return the permission created on the server or <code>null</code> if the grant failed
+	 */
+	public Permission getPermission() {
+		return permission;
+	}
+
+	public void setPermission(Permission permission) {
+		this.permission = permission;
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.model.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.google.api.client.http.AbstractInputStreamContent;
+
+/**
+ * Implementation of {@link com.google.api.client.http.AbstractInputStreamContent} which exposes
+ * a region of a file. The region is memory mapped each time the content is written, so sending it
+ * does not require copying it into the heap first and it can be replayed on retry
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class FileRegionContent extends AbstractInputStreamContent {
+
+	private java.io.File file;
+	private long position;
+	private long length;
+	
+	public FileRegionContent(String type, java.io.File file, long position, long length) {
+		super(type);
+		this.file = file;
+		this.position = position;
+		this.length = length;
+	}
+	
+	@Override
+	public long getLength() throws IOException {
+		return this.length;
+	}
+
+	@Override
+	public boolean retrySupported() {
+		return true;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, this.position, this.length));
+		} finally {
+			// the mapping remains valid after the channel is closed
+			raf.close();
+		}
+	}
+	
+	private static class ByteBufferInputStream extends InputStream {
+		
+		private final ByteBuffer buffer;
+		
+		private ByteBufferInputStream(MappedByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xff : -1;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			
+			int count = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, count);
+			
+			return count;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return this.buffer.remaining();
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.model.stream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.api.client.http.AbstractInputStreamContent;
+
+/**
+ * Implementation of {@link com.google.api.client.http.AbstractInputStreamContent} backed by a file.
+ * The exact length is known up front and the content can be replayed as many times as needed
+ * since each call to {@link #getInputStream()} opens a new stream over the file
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class FileStreamContent extends AbstractInputStreamContent {
+
+	private File file;
+	
+	public FileStreamContent(String type, File file) {
+		super(type);
+		this.file = file;
+	}
+	
+	@Override
+	public long getLength() throws IOException {
+		return this.file.length();
+	}
+
+	@Override
+	public boolean retrySupported() {
+		return true;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return new FileInputStream(this.file);
+	}
+	
+	/**
+	 * Returns a content which only exposes a region of this file
+	 * 
+	 * @param position the region's starting position
+	 * @param length the region's length
+	 * @return an instance of {@link org.mule.module.google.drive.model.stream.FileRegionContent}
+	 */
+	public FileRegionContent region(long position, long length) {
+		return new FileRegionContent(this.getType(), this.file, position, length);
+	}
+	
+	public File getFile() {
+		return file;
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.model.stream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.IOUtils;
+import org.mule.module.google.drive.transfer.ChannelTransfer;
+
+/**
+ * Extension of {@link org.mule.module.google.drive.model.stream.FileStreamContent} which consumes
+ * an input stream of unknown length into a temporary file. That way the content has an exact length and
+ * can be replayed on retry without having to hold the whole payload in memory. The content's md5 checksum
+ * is computed while spooling.
+ * 
+ * Invoke {@link #dispose()} once the content is no longer needed so that the temporary file is deleted
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class SpooledStreamContent extends FileStreamContent {
+	
+	private final String md5Checksum;
+
+	public SpooledStreamContent(String type, InputStream in) throws IOException {
+		this(type, in, ChannelTransfer.newMd5());
+	}
+	
+	private SpooledStreamContent(String type, InputStream in, MessageDigest digest) throws IOException {
+		super(type, spool(in, digest));
+		this.md5Checksum = ChannelTransfer.toHex(digest);
+	}
+	
+	private static File spool(InputStream in, MessageDigest digest) throws IOException {
+		File file = File.createTempFile("google-drive-upload", ".tmp");
+		
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			ChannelTransfer.copy(in, out.getChannel(), digest);
+		} catch (IOException e) {
+			IOUtils.closeQuietly(out);
+			file.delete();
+			throw e;
+		} finally {
+			IOUtils.closeQuietly(out);
+			IOUtils.closeQuietly(in);
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * @return the md5 checksum of the spooled content as a lower case hex string
+	 */
+	public String getMd5Checksum() {
+		return md5Checksum;
+	}
+	
+	/**
+	 * Deletes the temporary file
+	 */
+	public void dispose() {
+		this.getFile().delete();
+	}
+
+}
@@ -16,7 +16,10 @@ import java.io.InputStream;
 import com.google.api.client.http.AbstractInputStreamContent;
 
 /**
- * Implementation of {@link com.google.api.client.http.AbstractInputStreamContent} that accepts input streams
+ * Implementation of {@link com.google.api.client.http.AbstractInputStreamContent} that accepts input streams.
+ * Since a generic stream can neither be measured without consuming it nor rewound, this content
+ * reports an unknown length and does not support retries. Use {@link org.mule.module.google.drive.model.stream.FileStreamContent}
+ * or {@link org.mule.module.google.drive.model.stream.SpooledStreamContent} when the length needs to be known
  * 
  * @see com.google.api.client.http.AbstractInputStreamContent
  * @author mariano.gonzalez@mulesoft.com
@@ -33,12 +36,12 @@ public class StreamContent extends AbstractInputStreamContent {
 	
 	@Override
 	public long getLength() throws IOException {
-		return this.in.available();
+		return -1;
 	}
 
 	@Override
 	public boolean retrySupported() {
-		return true;
+		return false;
 	}
 
 	@Override
@@ -0,0 +1,41 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.paging;
+
+import java.util.List;
+
+/**
+ * A page of results along with the token to fetch the next one
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class Page<T> {
+
+	private final List<T> items;
+	private final String nextPageToken;
+	
+	public Page(List<T> items, String nextPageToken) {
+		this.items = items;
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return the token for the next page or <code>null</code> if this is the last one
+	 */
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+	
+}
@@ -0,0 +1,31 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.paging;
+
+import java.io.IOException;
+
+/**
+ * Fetches a page of a token based listing
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public interface PageFetcher<T> {
+
+	/**
+	 * Fetches the page for the given token
+	 * 
+	 * @param pageToken the page token or <code>null</code> for the first page
+	 * @return the fetched page
+	 * @throws IOException in case of connection issues
+	 */
+	public Page<T> fetch(String pageToken) throws IOException;
+	
+}
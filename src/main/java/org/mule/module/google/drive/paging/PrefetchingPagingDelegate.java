@@ -0,0 +1,204 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.paging;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.mule.api.MuleException;
+import org.mule.streaming.PagingDelegate;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+/**
+ * {@link org.mule.streaming.PagingDelegate} which fetches pages ahead of the consumer.
+ * A background thread requests the next page as soon as the token for it is known, while
+ * the current page is still being consumed. At most <code>depth</code> pages are held in memory
+ * waiting to be consumed; once that limit is reached the background thread waits for the consumer.
+ *
+ * If the consumer doesn't take a page for a while, for example because it stopped iterating without closing
+ * the delegate, the background thread hands over the page it holds and exits instead of waiting forever.
+ * Prefetching transparently continues from that page if the consumer comes back.
+ *
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class PrefetchingPagingDelegate<T> extends PagingDelegate<T> {
+	
+	private static final Object END = new Object();
+	private static final long POLL_INTERVAL_MILLIS = 1000;
+	private static final long SUSPEND_AFTER_MILLIS = 30000;
+	
+	private final PageFetcher<T> fetcher;
+	private final BlockingQueue<Object> pages;
+	private ThreadPoolExecutor executor;
+	private volatile boolean finished = false;
+	
+	private volatile boolean suspended = false;
+	private Object suspendedItem;
+	private String suspendedToken;
+	
+	public PrefetchingPagingDelegate(PageFetcher<T> fetcher, int depth) {
+		this.fetcher = fetcher;
+		this.pages = new ArrayBlockingQueue<Object>(Math.max(1, depth));
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<T> getPage() {
+		if (this.finished) {
+			return null;
+		}
+		
+		if (this.executor == null) {
+			this.executor = new ThreadPoolExecutor(1, 1, SUSPEND_AFTER_MILLIS, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("google-drive-page-prefetch"));
+			this.executor.allowCoreThreadTimeOut(true);
+			this.prefetch(null);
+		}
+		
+		Object next;
+		try {
+			while ((next = this.pages.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				if (this.suspended) {
+					next = this.resume();
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.stop();
+			throw new RuntimeException("Interrupted while waiting for the next page", e);
+		}
+		
+		if (next == END) {
+			this.stop();
+			return null;
+		} else if (next instanceof Throwable) {
+			this.stop();
+			throw new RuntimeException("Could not fetch page", (Throwable) next);
+		}
+		
+		return (List<T>) next;
+	}
+	
+	@Override
+	public int getTotalResults() {
+		return -1;
+	}
+	
+	@Override
+	public void close() throws MuleException {
+		this.stop();
+	}
+	
+	/**
+	 * Takes the item the background thread held when it gave up waiting and continues prefetching after it
+	 */
+	private Object resume() {
+		this.suspended = false;
+		
+		Object item = this.suspendedItem;
+		String token = this.suspendedToken;
+		this.suspendedItem = null;
+		this.suspendedToken = null;
+		
+		if (item instanceof List) {
+			if (token != null) {
+				this.prefetch(token);
+			} else {
+				this.pages.offer(END);
+			}
+		}
+		
+		return item;
+	}
+	
+	private void prefetch(final String startToken) {
+		this.executor.execute(new Runnable() {
+			
+			@Override
+			public void run() {
+				String token = startToken;
+				
+				try {
+					do {
+						Page<T> page;
+						
+						try {
+							page = fetcher.fetch(token);
+						} catch (IOException e) {
+							this.hand(e, null);
+							return;
+						} catch (RuntimeException e) {
+							this.hand(e, null);
+							return;
+						}
+						
+						// Drive omits the items of empty pages
+						List<T> items = page.getItems() != null ? page.getItems() : Collections.<T>emptyList();
+						token = page.getNextPageToken();
+						
+						if (!this.hand(items, token)) {
+							return;
+						}
+					} while (token != null);
+					
+					this.hand(END, null);
+				} catch (InterruptedException e) {
+					// consumer closed the delegate
+				}
+			}
+			
+			/**
+			 * Puts the item on the queue. If the consumer doesn't make room for it in time, the item is
+			 * left for the consumer to pick up along with the token to continue from
+			 *
+			 * @return whether prefetching should continue
+			 */
+			private boolean hand(Object item, String nextToken) throws InterruptedException {
+				long deadline = System.currentTimeMillis() + SUSPEND_AFTER_MILLIS;
+				
+				while (!finished) {
+					if (pages.offer(item, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+					
+					if (System.currentTimeMillis() >= deadline) {
+						suspendedItem = item;
+						suspendedToken = nextToken;
+						suspended = true;
+						
+						return false;
+					}
+				}
+				
+				return false;
+			}
+		});
+	}
+	
+	private void stop() {
+		this.finished = true;
+		
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+		
+		this.pages.clear();
+		this.suspendedItem = null;
+	}
+
+}
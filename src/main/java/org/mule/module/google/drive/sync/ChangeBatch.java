@@ -0,0 +1,53 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.util.List;
+
+import org.mule.module.google.drive.model.Change;
+
+/**
+ * The changes fetched by one poll of a {@link org.mule.module.google.drive.sync.ChangeSyncEngine},
+ * in the order in which they happened
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ChangeBatch {
+	
+	private final List<Change> changes;
+	private final Long watermark;
+	private final boolean hasMore;
+	
+	ChangeBatch(List<Change> changes, Long watermark, boolean hasMore) {
+		this.changes = changes;
+		this.watermark = watermark;
+		this.hasMore = hasMore;
+	}
+
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * @return the watermark to store once the changes have been processed
+	 */
+	public Long getWatermark() {
+		return watermark;
+	}
+
+	/**
+	 * @return whether the poll stopped because of the size limit and more changes are already available
+	 */
+	public boolean hasMore() {
+		return hasMore;
+	}
+
+}
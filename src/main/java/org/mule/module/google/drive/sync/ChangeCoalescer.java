@@ -0,0 +1,60 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mule.module.google.drive.model.Change;
+
+/**
+ * Collapses the changes read in one poll so that only one change is kept per file.
+ * The latest change of each file is kept, except that a deletion is never replaced
+ * by a later change, since there's nothing left to fetch for a deleted file.
+ * 
+ * The resulting changes keep the relative order of the changes that were retained.
+ * Changes without a file id are kept as they are.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public final class ChangeCoalescer {
+	
+	private ChangeCoalescer() {
+	}
+	
+	/**
+	 * @param changes the changes in the order in which they happened
+	 * @return a new list with at most one change per file id
+	 */
+	public static List<Change> coalesce(List<Change> changes) {
+		Map<Object, Change> latest = new LinkedHashMap<Object, Change>();
+		
+		for (Change change : changes) {
+			Object key = change.getFileId() != null ? change.getFileId() : new Object();
+			Change previous = latest.remove(key);
+			
+			if (previous != null && isDeleted(previous) && !isDeleted(change)) {
+				latest.put(key, previous);
+			} else {
+				latest.put(key, change);
+			}
+		}
+		
+		return new ArrayList<Change>(latest.values());
+	}
+	
+	private static boolean isDeleted(Change change) {
+		return Boolean.TRUE.equals(change.getDeleted());
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mule.api.MuleException;
+import org.mule.module.google.drive.model.Change;
+import org.mule.module.google.drive.paging.Page;
+import org.mule.module.google.drive.paging.PageFetcher;
+import org.mule.module.google.drive.paging.PrefetchingPagingDelegate;
+
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.ChangeList;
+
+/**
+ * Incrementally reads the change feed of a user. The id of the last processed change (the watermark)
+ * is kept in a {@link org.mule.module.google.drive.sync.WatermarkStore}, so each poll only fetches
+ * the changes that happened after it. On the very first poll there's no watermark, so the user's
+ * largest change id is stored and no changes are returned.
+ * 
+ * Usage consists of invoking {@link #poll()}, processing the returned changes and then invoking
+ * {@link #commit(ChangeBatch)}. If processing fails and the batch is not committed, the same changes
+ * will be returned by the next poll.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ChangeSyncEngine {
+	
+	private final Drive client;
+	private final WatermarkStore watermarkStore;
+	private final String key;
+	private final boolean includeSubscribed;
+	private final int pageSize;
+	private final int prefetchDepth;
+	private final int maxChangesPerPoll;
+	
+	/**
+	 * @param client the client for the user which changes are synced
+	 * @param watermarkStore the store for the watermark
+	 * @param key the key of the watermark in the store
+	 * @param includeSubscribed Whether to include shared files and public files the user has opened
+	 * @param pageSize how many changes to request per page
+	 * @param prefetchDepth if greater than zero, how many pages to fetch ahead while the current one is being read
+	 * @param maxChangesPerPoll once at least this many changes were read, the poll stops at the end of the current page
+	 */
+	public ChangeSyncEngine(Drive client, WatermarkStore watermarkStore, String key, boolean includeSubscribed,
+			int pageSize, int prefetchDepth, int maxChangesPerPoll) {
+		this.client = client;
+		this.watermarkStore = watermarkStore;
+		this.key = key;
+		this.includeSubscribed = includeSubscribed;
+		this.pageSize = pageSize;
+		this.prefetchDepth = prefetchDepth;
+		this.maxChangesPerPoll = maxChangesPerPoll;
+	}
+	
+	/**
+	 * Fetches the changes after the stored watermark
+	 * 
+	 * @return a {@link org.mule.module.google.drive.sync.ChangeBatch}
+	 * @throws IOException in case of connection issues
+	 */
+	public ChangeBatch poll() throws IOException {
+		Long watermark = this.watermarkStore.retrieve(this.key);
+		
+		if (watermark == null) {
+			Long largest = this.client.about().get().setFields("largestChangeId").execute().getLargestChangeId();
+			this.watermarkStore.store(this.key, largest);
+			
+			return new ChangeBatch(new ArrayList<Change>(), largest, false);
+		}
+		
+		final Long startChangeId = watermark + 1;
+		PageFetcher<Change> fetcher = new PageFetcher<Change>() {
+			
+			@Override
+			public Page<Change> fetch(String pageToken) throws IOException {
+				ChangeList response = client.changes().list()
+						.setIncludeDeleted(true)
+						.setIncludeSubscribed(includeSubscribed)
+						.setMaxResults(pageSize)
+						.setStartChangeId(startChangeId)
+						.setPageToken(pageToken)
+						.execute();
+				
+				return new Page<Change>(Change.valueOf(response.getItems(), Change.class), response.getNextPageToken());
+			}
+		};
+		
+		return this.prefetchDepth > 0 ? this.read(new PrefetchingPagingDelegate<Change>(fetcher, this.prefetchDepth), watermark) : this.read(fetcher, watermark);
+	}
+	
+	/**
+	 * Stores the batch's watermark. Invoke once all its changes have been processed
+	 * 
+	 * @param batch a batch returned by {@link #poll()}
+	 * @throws IOException if the watermark could not be stored
+	 */
+	public void commit(ChangeBatch batch) throws IOException {
+		this.watermarkStore.store(this.key, batch.getWatermark());
+	}
+	
+	private ChangeBatch read(PageFetcher<Change> fetcher, Long watermark) throws IOException {
+		List<Change> changes = new ArrayList<Change>();
+		String token = null;
+		
+		do {
+			Page<Change> page = fetcher.fetch(token);
+			watermark = this.append(changes, page.getItems(), watermark);
+			token = page.getNextPageToken();
+		} while (token != null && changes.size() < this.maxChangesPerPoll);
+		
+		return new ChangeBatch(changes, watermark, token != null);
+	}
+	
+	private ChangeBatch read(PrefetchingPagingDelegate<Change> delegate, Long watermark) throws IOException {
+		List<Change> changes = new ArrayList<Change>();
+		List<Change> page;
+		boolean hasMore = false;
+		
+		try {
+			while ((page = delegate.getPage()) != null) {
+				watermark = this.append(changes, page, watermark);
+				
+				if (changes.size() >= this.maxChangesPerPoll) {
+					hasMore = true;
+					break;
+				}
+			}
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			
+			throw e;
+		} finally {
+			try {
+				delegate.close();
+			} catch (MuleException e) {
+				// nothing to release
+			}
+		}
+		
+		return new ChangeBatch(changes, watermark, hasMore);
+	}
+	
+	private Long append(List<Change> changes, List<Change> page, Long watermark) {
+		if (page != null) {
+			for (Change change : page) {
+				changes.add(change);
+				
+				if (change.getId() != null && change.getId() > watermark) {
+					watermark = change.getId();
+				}
+			}
+		}
+		
+		return watermark;
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of {@link org.mule.module.google.drive.sync.WatermarkStore} which keeps
+ * the watermarks in memory. They are lost on restart, in which case the sync starts
+ * again from the largest change id at that time
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class InMemoryWatermarkStore implements WatermarkStore {
+	
+	private final ConcurrentMap<String, Long> watermarks = new ConcurrentHashMap<String, Long>();
+
+	@Override
+	public Long retrieve(String key) {
+		return this.watermarks.get(key);
+	}
+
+	@Override
+	public void store(String key, Long changeId) {
+		this.watermarks.put(key, changeId);
+	}
+
+}
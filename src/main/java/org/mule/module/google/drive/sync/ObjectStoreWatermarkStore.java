@@ -0,0 +1,92 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+
+/**
+ * Implementation of {@link org.mule.module.google.drive.sync.WatermarkStore} backed by
+ * a Mule {@link org.mule.api.store.ObjectStore}. Use a persistent object store to keep
+ * watermarks across restarts.
+ * 
+ * Object stores can't replace a value atomically, so each watermark is kept in two slots and
+ * a new value always overwrites the slot that doesn't hold the latest one. If the process dies
+ * in between removing and storing, the latest watermark is still in the other slot. Since
+ * watermarks only move forward, the greatest of both slots is the current one
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ObjectStoreWatermarkStore implements WatermarkStore {
+	
+	private ObjectStore<Serializable> objectStore;
+	
+	public ObjectStoreWatermarkStore() {
+	}
+	
+	public ObjectStoreWatermarkStore(ObjectStore<Serializable> objectStore) {
+		this.objectStore = objectStore;
+	}
+
+	@Override
+	public synchronized Long retrieve(String key) throws IOException {
+		try {
+			return latest(this.get(slot(key, 0)), this.get(slot(key, 1)));
+		} catch (ObjectStoreException e) {
+			throw new IOException("Could not retrieve watermark " + key, e);
+		}
+	}
+
+	@Override
+	public synchronized void store(String key, Long changeId) throws IOException {
+		try {
+			Long first = this.get(slot(key, 0));
+			Long second = this.get(slot(key, 1));
+			String target = first == null || (second != null && first < second) ? slot(key, 0) : slot(key, 1);
+			
+			if (this.objectStore.contains(target)) {
+				this.objectStore.remove(target);
+			}
+			
+			this.objectStore.store(target, changeId);
+		} catch (ObjectStoreException e) {
+			throw new IOException("Could not store watermark " + key, e);
+		}
+	}
+	
+	private Long get(String slot) throws ObjectStoreException {
+		return this.objectStore.contains(slot) ? (Long) this.objectStore.retrieve(slot) : null;
+	}
+	
+	private static String slot(String key, int index) {
+		return key + "#" + index;
+	}
+	
+	private static Long latest(Long first, Long second) {
+		if (first == null) {
+			return second;
+		}
+		
+		return second == null || first > second ? first : second;
+	}
+
+	public ObjectStore<Serializable> getObjectStore() {
+		return objectStore;
+	}
+
+	public void setObjectStore(ObjectStore<Serializable> objectStore) {
+		this.objectStore = objectStore;
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import java.io.IOException;
+
+/**
+ * Persists the id of the last change processed by a change sync, so that
+ * the next poll only fetches newer changes
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public interface WatermarkStore {
+	
+	/**
+	 * @param key the key that identifies the sync
+	 * @return the stored change id or <code>null</code> if none was stored yet
+	 * @throws IOException if the store could not be read
+	 */
+	public Long retrieve(String key) throws IOException;
+	
+	/**
+	 * @param key the key that identifies the sync
+	 * @param changeId the id of the last processed change
+	 * @throws IOException if the store could not be written
+	 */
+	public void store(String key, Long changeId) throws IOException;
+
+}
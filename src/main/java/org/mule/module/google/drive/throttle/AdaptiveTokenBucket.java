@@ -0,0 +1,144 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket which adapts its refill rate using additive increase / multiplicative decrease.
+ * Each time the server signals that a quota was exceeded the rate is halved, at most once per
+ * second so that a burst of errors caused by the same excess doesn't collapse it. Each successful
+ * response then increases the rate by {@link #INCREASE_FRACTION} of the maximum rate divided by the current one,
+ * so that every second of successful traffic raises the rate by that fraction of the maximum, until it's reached.
+ * Without traffic the rate doesn't recover, since nothing tells whether the quota allows more.
+ * 
+ * Permits are handed out as reservations, so waiting callers don't hold the lock while sleeping.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class AdaptiveTokenBucket {
+	
+	private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+	
+	/**
+	 * The fraction of the maximum rate the rate grows by for each second worth of successful responses
+	 */
+	static final double INCREASE_FRACTION = 1 / 16d;
+	
+	/**
+	 * The minimum rate is this fraction of the maximum one
+	 */
+	private static final double MIN_RATE_FRACTION = 1 / 16d;
+	
+	private final double maxRate;
+	private final double minRate;
+	
+	private double rate;
+	private double tokens;
+	private long lastRefill;
+	private long lastDecrease;
+	
+	/**
+	 * @param maxRate the maximum amount of permits per second
+	 */
+	public AdaptiveTokenBucket(double maxRate) {
+		if (maxRate <= 0) {
+			throw new IllegalArgumentException("rate must be greater than zero");
+		}
+		
+		this.maxRate = maxRate;
+		this.minRate = maxRate * MIN_RATE_FRACTION;
+		this.rate = maxRate;
+		this.tokens = this.capacity();
+		this.lastRefill = System.nanoTime();
+		this.lastDecrease = this.lastRefill - DECREASE_COOLDOWN_NANOS;
+	}
+	
+	/**
+	 * Takes one permit, waiting until it's available
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		this.acquire(1);
+	}
+	
+	/**
+	 * Takes the given amount of permits, waiting until they're available
+	 * 
+	 * @param permits the amount of permits
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(int permits) throws InterruptedException {
+		long waitNanos;
+		
+		synchronized (this) {
+			this.refill(System.nanoTime());
+			this.tokens -= permits;
+			waitNanos = this.tokens >= 0 ? 0 : (long) (-this.tokens / this.rate * 1e9);
+		}
+		
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+	
+	/**
+	 * Signals that a quota was exceeded. The rate is halved, unless it was already
+	 * decreased during the last second, and any accumulated burst is discarded
+	 */
+	public synchronized void decrease() {
+		long now = System.nanoTime();
+		this.refill(now);
+		
+		if (now - this.lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+			this.rate = Math.max(this.minRate, this.rate / 2);
+			this.tokens = Math.min(this.tokens, 0);
+			this.lastDecrease = now;
+		}
+	}
+	
+	/**
+	 * Signals that a request succeeded. Unless the rate was decreased during the last second,
+	 * it grows additively up to its maximum
+	 */
+	public synchronized void increase() {
+		long now = System.nanoTime();
+		
+		if (this.rate < this.maxRate && now - this.lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+			this.refill(now);
+			this.rate = Math.min(this.maxRate, this.rate + this.maxRate * INCREASE_FRACTION / this.rate);
+		}
+	}
+	
+	/**
+	 * @return the current amount of permits per second
+	 */
+	public synchronized double getRate() {
+		return this.rate;
+	}
+	
+	private void refill(long now) {
+		double elapsedSeconds = (now - this.lastRefill) / 1e9;
+		this.lastRefill = now;
+		this.tokens = Math.min(this.capacity(), this.tokens + elapsedSeconds * this.rate);
+	}
+	
+	/**
+	 * Allows bursts of up to one second worth of permits
+	 */
+	private double capacity() {
+		return Math.max(1, this.rate);
+	}
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.throttle;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with full jitter. The delay before the n-th retry is a random value
+ * between zero and <code>min(maxIntervalMillis, initialIntervalMillis * 2^n)</code>, so that
+ * clients which failed at the same time don't retry in lockstep.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class BackoffPolicy {
+	
+	private final int maxRetries;
+	private final long initialIntervalMillis;
+	private final long maxIntervalMillis;
+	private final Random random = new Random();
+	
+	/**
+	 * @param maxRetries how many times a request can be retried
+	 * @param initialIntervalMillis the upper bound of the delay before the first retry
+	 * @param maxIntervalMillis the maximum upper bound of any delay
+	 */
+	public BackoffPolicy(int maxRetries, long initialIntervalMillis, long maxIntervalMillis) {
+		this.maxRetries = maxRetries;
+		this.initialIntervalMillis = initialIntervalMillis;
+		this.maxIntervalMillis = maxIntervalMillis;
+	}
+	
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+	
+	/**
+	 * @param retry the zero based number of the retry about to be performed
+	 * @return how many milliseconds to wait before it
+	 */
+	public long delayMillis(int retry) {
+		long ceiling = this.maxIntervalMillis;
+		
+		if (retry < 31) {
+			ceiling = Math.min(ceiling, this.initialIntervalMillis << retry);
+		}
+		
+		return ceiling > 0 ? (long) (this.random.nextDouble() * ceiling) : 0;
+	}
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.throttle;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Client side rate limiter for the requests of one user. Each request takes a permit from
+ * the user's own bucket and from a bucket shared by every user of the same project (OAuth consumer key),
+ * mirroring the per-user and per-project quotas enforced by Google Drive. Since Drive charges each request of a batch
+ * against the quotas, a batch takes one permit per request it holds. When a quota error is received
+ * both buckets slow down, and they speed up again as requests succeed.
+ * 
+ * This class is thread safe
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class RateLimiter {
+	
+	private static final ConcurrentMap<String, AdaptiveTokenBucket> projectBuckets = new ConcurrentHashMap<String, AdaptiveTokenBucket>();
+	
+	private final AdaptiveTokenBucket userBucket;
+	private final AdaptiveTokenBucket projectBucket;
+	
+	/**
+	 * @param userRequestsPerSecond the maximum requests per second for this user. Zero or less means unlimited
+	 * @param projectKey the key that identifies the project, typically the OAuth consumer key
+	 * @param projectRequestsPerSecond the maximum requests per second across all the users of the project. Zero or less means unlimited.
+	 * 			If a bucket already exists for the project, its original rate is kept
+	 */
+	public RateLimiter(double userRequestsPerSecond, String projectKey, double projectRequestsPerSecond) {
+		this.userBucket = userRequestsPerSecond > 0 ? new AdaptiveTokenBucket(userRequestsPerSecond) : null;
+		this.projectBucket = projectRequestsPerSecond > 0 ? projectBucket(projectKey, projectRequestsPerSecond) : null;
+	}
+	
+	private static AdaptiveTokenBucket projectBucket(String projectKey, double requestsPerSecond) {
+		AdaptiveTokenBucket bucket = projectBuckets.get(projectKey);
+		
+		if (bucket == null) {
+			AdaptiveTokenBucket newBucket = new AdaptiveTokenBucket(requestsPerSecond);
+			bucket = projectBuckets.putIfAbsent(projectKey, newBucket);
+			
+			if (bucket == null) {
+				bucket = newBucket;
+			}
+		}
+		
+		return bucket;
+	}
+	
+	/**
+	 * Waits until a request can be issued
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		this.acquire(1);
+	}
+	
+	/**
+	 * Waits until the given amount of requests can be issued
+	 * 
+	 * @param permits the amount of requests
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(int permits) throws InterruptedException {
+		if (this.projectBucket != null) {
+			this.projectBucket.acquire(permits);
+		}
+		
+		if (this.userBucket != null) {
+			this.userBucket.acquire(permits);
+		}
+	}
+	
+	/**
+	 * Signals that the server accepted a request
+	 */
+	public void succeeded() {
+		if (this.userBucket != null) {
+			this.userBucket.increase();
+		}
+		
+		if (this.projectBucket != null) {
+			this.projectBucket.increase();
+		}
+	}
+	
+	/**
+	 * Signals that the server rejected a request because a quota was exceeded
+	 */
+	public void rateLimited() {
+		if (this.userBucket != null) {
+			this.userBucket.decrease();
+		}
+		
+		if (this.projectBucket != null) {
+			this.projectBucket.decrease();
+		}
+	}
+
+}
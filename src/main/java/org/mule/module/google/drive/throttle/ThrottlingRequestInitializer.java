@@ -0,0 +1,228 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.throttle;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonError.ErrorInfo;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import com.google.api.client.json.JsonFactory;
+
+/**
+ * {@link com.google.api.client.http.HttpRequestInitializer} which makes every request issued by a
+ * Drive client take a permit from a {@link org.mule.module.google.drive.throttle.RateLimiter} before being
+ * sent, and reports successful responses and quota errors back to it. Since it works at the request factory level
+ * it covers API calls and raw content transfers alike. Batch envelopes don't take a permit here, since
+ * {@link org.mule.module.google.drive.batch.DriveBatch} takes one for each request they hold.
+ * 
+ * If a {@link org.mule.module.google.drive.throttle.BackoffPolicy} is provided, idempotent requests which fail with
+ * a server error or an exceeded quota are retried after waiting as the policy indicates. Requests are considered
+ * idempotent if their method is GET, HEAD, PUT or DELETE or if they carry an If-Match header (such as
+ * a patch conditioned on an etag). Requests which content cannot be replayed are never retried, and neither are requests
+ * to a resumable upload session (identified by their upload_id parameter): after a failure, the protocol requires querying
+ * the committed offset before resending, which {@link org.mule.module.google.drive.transfer.ResumableUpload} does itself.
+ * 
+ * Drive reports exceeded quotas as 403 with a rateLimitExceeded or userRateLimitExceeded reason. Telling them apart
+ * from other 403 responses requires reading the body, which cannot be rewound. So the body of a 403 is only read when the
+ * outcome matters, that is when throttling is enabled or the request could be retried. In that case, unless the request
+ * is retried, the {@link com.google.api.client.googleapis.json.GoogleJsonResponseException} the client would have raised is
+ * built from the body and thrown from here, so callers still get the error's details.
+ * 
+ * The interceptor and unsuccessful response handler set by the delegate (typically the OAuth credential)
+ * are preserved and invoked first.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ThrottlingRequestInitializer implements HttpRequestInitializer {
+	
+	private static final Log logger = LogFactory.getLog(ThrottlingRequestInitializer.class);
+	
+	private static final int TOO_MANY_REQUESTS = 429;
+	private static final int FORBIDDEN = 403;
+	
+	private static final Set<Integer> RETRYABLE_STATUSES = new HashSet<Integer>(Arrays.asList(500, 502, 503, 504));
+	private static final Set<String> IDEMPOTENT_METHODS = new HashSet<String>(Arrays.asList("GET", "HEAD", "PUT", "DELETE"));
+	private static final String UPLOAD_ID_PARAMETER = "upload_id";
+	private static final String BATCH_PATH = "batch";
+	
+	private final HttpRequestInitializer delegate;
+	private final JsonFactory jsonFactory;
+	private final RateLimiter rateLimiter;
+	private final BackoffPolicy backoffPolicy;
+	
+	/**
+	 * @param delegate the initializer to invoke first, typically the OAuth credential
+	 * @param jsonFactory the factory used to parse error responses
+	 * @param rateLimiter the rate limiter or <code>null</code> if requests are not to be throttled
+	 * @param backoffPolicy the backoff policy or <code>null</code> if requests are not to be retried
+	 */
+	public ThrottlingRequestInitializer(HttpRequestInitializer delegate, JsonFactory jsonFactory, RateLimiter rateLimiter, BackoffPolicy backoffPolicy) {
+		this.delegate = delegate;
+		this.jsonFactory = jsonFactory;
+		this.rateLimiter = rateLimiter;
+		this.backoffPolicy = backoffPolicy;
+	}
+	
+	@Override
+	public void initialize(HttpRequest request) throws IOException {
+		if (this.delegate != null) {
+			this.delegate.initialize(request);
+		}
+		
+		final HttpExecuteInterceptor interceptor = request.getInterceptor();
+		final HttpUnsuccessfulResponseHandler handler = request.getUnsuccessfulResponseHandler();
+		
+		if (this.rateLimiter != null) {
+			final HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+			
+			request.setInterceptor(new HttpExecuteInterceptor() {
+				
+				@Override
+				public void intercept(HttpRequest request) throws IOException {
+					if (interceptor != null) {
+						interceptor.intercept(request);
+					}
+					
+					// the url is only known once the request is built, so batches are told apart here
+					if (isBatch(request)) {
+						return;
+					}
+					
+					try {
+						rateLimiter.acquire();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("Interrupted while waiting for a request permit");
+					}
+				}
+			});
+			
+			request.setResponseInterceptor(new HttpResponseInterceptor() {
+				
+				@Override
+				public void interceptResponse(HttpResponse response) throws IOException {
+					if (response.isSuccessStatusCode() && !isBatch(response.getRequest())) {
+						rateLimiter.succeeded();
+					}
+					
+					if (responseInterceptor != null) {
+						responseInterceptor.interceptResponse(response);
+					}
+				}
+			});
+		}
+		
+		if (this.backoffPolicy != null) {
+			request.setNumberOfRetries(Math.max(request.getNumberOfRetries(), this.backoffPolicy.getMaxRetries()));
+		}
+		
+		request.setUnsuccessfulResponseHandler(new HttpUnsuccessfulResponseHandler() {
+			
+			private int retries = 0;
+			
+			@Override
+			public boolean handleResponse(HttpRequest request, HttpResponse response, boolean supportsRetry) throws IOException {
+				if (handler != null && handler.handleResponse(request, response, supportsRetry)) {
+					return true;
+				}
+				
+				int status = response.getStatusCode();
+				boolean retryable = backoffPolicy != null && supportsRetry && this.retries < backoffPolicy.getMaxRetries() && isIdempotent(request);
+				boolean rateLimited = status == TOO_MANY_REQUESTS;
+				GoogleJsonResponseException error = null;
+				
+				if (status == FORBIDDEN && (rateLimiter != null || retryable)) {
+					error = GoogleJsonResponseException.from(jsonFactory, response);
+					rateLimited = isRateLimitError(error.getDetails());
+				}
+				
+				if (rateLimited && rateLimiter != null) {
+					rateLimiter.rateLimited();
+				}
+				
+				if (!retryable || (!rateLimited && !RETRYABLE_STATUSES.contains(status))) {
+					if (error != null) {
+						throw error;
+					}
+					
+					return false;
+				}
+				
+				long delay = backoffPolicy.delayMillis(this.retries++);
+				
+				if (logger.isDebugEnabled()) {
+					logger.debug(String.format("%s %s failed with status %d. Retrying in %d ms (retry %d of %d)",
+							request.getRequestMethod(), request.getUrl(), response.getStatusCode(), delay, this.retries, backoffPolicy.getMaxRetries()));
+				}
+				
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while backing off");
+				}
+				
+				return true;
+			}
+		});
+	}
+	
+	/**
+	 * Batch envelopes are posted to the batch endpoint rather than to the API's service path
+	 */
+	private static boolean isBatch(HttpRequest request) {
+		List<String> pathParts = request.getUrl().getPathParts();
+		
+		return pathParts != null && !pathParts.isEmpty() && BATCH_PATH.equals(pathParts.get(pathParts.size() - 1));
+	}
+	
+	private static boolean isIdempotent(HttpRequest request) {
+		if (request.getUrl().containsKey(UPLOAD_ID_PARAMETER)) {
+			return false;
+		}
+		
+		return IDEMPOTENT_METHODS.contains(request.getRequestMethod()) || request.getHeaders().getIfMatch() != null;
+	}
+	
+	/**
+	 * @param details the details of a 403 error, if it had any
+	 * @return whether the error is an exceeded quota
+	 */
+	private static boolean isRateLimitError(GoogleJsonError details) {
+		if (details == null || details.getErrors() == null) {
+			return false;
+		}
+		
+		for (ErrorInfo info : details.getErrors()) {
+			if ("rateLimitExceeded".equals(info.getReason()) || "userRateLimitExceeded".equals(info.getReason())) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Utility methods to move content into and out of {@link java.nio.channels.FileChannel}s,
+ * computing a digest of the content along the way.
+ * 
+ * Content coming from an {@link java.io.InputStream} lives on the heap, so it cannot be transferred
+ * without copying. Instead of allocating a buffer per transfer, each thread reuses its own heap buffer,
+ * which is also what the digest is computed from
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public final class ChannelTransfer {
+	
+	private static final int BUFFER_SIZE = 256 * 1024;
+	
+	private static final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFFER_SIZE];
+		}
+	};
+	
+	private ChannelTransfer() {
+	}
+	
+	/**
+	 * Writes the contents of the given stream into the channel, starting at its current position
+	 * 
+	 * @param in the stream to consume. It is not closed by this method
+	 * @param channel the target channel
+	 * @param digest a digest to be updated with the transferred bytes. Can be <code>null</code>
+	 * @return the amount of bytes written
+	 * @throws IOException in case of I/O errors
+	 */
+	public static long copy(InputStream in, FileChannel channel, MessageDigest digest) throws IOException {
+		byte[] bytes = buffers.get();
+		long written = 0;
+		int read;
+		
+		while ((read = in.read(bytes)) != -1) {
+			if (digest != null) {
+				digest.update(bytes, 0, read);
+			}
+			
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+			while (buffer.hasRemaining()) {
+				written += channel.write(buffer);
+			}
+		}
+		
+		return written;
+	}
+	
+	/**
+	 * Updates the digest with the whole content of the channel, without altering its position.
+	 * The channel must be readable
+	 * 
+	 * @param channel the channel to read
+	 * @param digest the digest to update
+	 * @throws IOException in case of I/O errors
+	 */
+	public static void digest(FileChannel channel, MessageDigest digest) throws IOException {
+		byte[] bytes = buffers.get();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		long position = 0;
+		int read;
+		
+		while ((read = channel.read(buffer, position)) != -1) {
+			position += read;
+			digest.update(bytes, 0, buffer.position());
+			buffer.clear();
+		}
+	}
+	
+	/**
+	 * @return a new md5 digest
+	 */
+	public static MessageDigest newMd5() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param digest a digest
+	 * @return the digest's value as a lower case hex string
+	 */
+	public static String toHex(MessageDigest digest) {
+		return new String(Hex.encodeHex(digest.digest()));
+	}
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.transfer;
+
+import java.io.IOException;
+
+/**
+ * Signals that the md5 checksum of transferred content doesn't match the one reported by Google Drive
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ChecksumMismatchException extends IOException {
+
+	private static final long serialVersionUID = 5520853452938411377L;
+	
+	private final String expected;
+	private final String actual;
+	
+	public ChecksumMismatchException(String subject, String expected, String actual) {
+		super(String.format("Checksum mismatch for %s. Expected %s but was %s", subject, expected, actual));
+		this.expected = expected;
+		this.actual = actual;
+	}
+
+	public String getExpected() {
+		return expected;
+	}
+
+	public String getActual() {
+		return actual;
+	}
+
+}
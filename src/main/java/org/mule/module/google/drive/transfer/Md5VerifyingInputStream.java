@@ -0,0 +1,144 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+/**
+ * {@link java.io.FilterInputStream} which computes the md5 checksum of the content as it is read.
+ * If an expected checksum is provided, it is verified once the end of the stream is reached and a
+ * {@link org.mule.module.google.drive.transfer.ChecksumMismatchException} is thrown if it doesn't match.
+ * Once a mismatch is detected, every further read and the close of the stream fail with it as well, so that
+ * a consumer which ignores the first failure cannot take the content as valid.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class Md5VerifyingInputStream extends FilterInputStream {
+	
+	private final String subject;
+	private final String expectedMd5;
+	private final MessageDigest digest = ChannelTransfer.newMd5();
+	private String md5Checksum;
+	private ChecksumMismatchException mismatch;
+	
+	/**
+	 * @param in the stream to wrap
+	 * @param subject a description of the content, used in error messages
+	 * @param expectedMd5 the expected checksum as an hex string, or <code>null</code> to only compute it
+	 */
+	public Md5VerifyingInputStream(InputStream in, String subject, String expectedMd5) {
+		super(in);
+		this.subject = subject;
+		this.expectedMd5 = expectedMd5;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		this.checkMismatch();
+		int b = super.read();
+		
+		if (b == -1) {
+			this.finish();
+		} else {
+			this.digest.update((byte) b);
+		}
+		
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		this.checkMismatch();
+		int read = super.read(b, off, len);
+		
+		if (read == -1) {
+			this.finish();
+		} else {
+			this.digest.update(b, off, read);
+		}
+		
+		return read;
+	}
+	
+	/**
+	 * Skipped bytes are read so that they're included in the checksum
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		long skipped = 0;
+		
+		while (skipped < n) {
+			int read = this.read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+			if (read == -1) {
+				break;
+			}
+			skipped += read;
+		}
+		
+		return skipped;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		super.close();
+		this.checkMismatch();
+	}
+	
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+	
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+	
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+	
+	/**
+	 * @return the checksum of the content read so far as a lower case hex string. Once invoked,
+	 * the checksum is fixed, so it should only be called after the content was fully consumed
+	 */
+	public String getMd5Checksum() {
+		if (this.md5Checksum == null) {
+			this.md5Checksum = ChannelTransfer.toHex(this.digest);
+		}
+		
+		return this.md5Checksum;
+	}
+	
+	private void finish() throws IOException {
+		if (this.md5Checksum != null) {
+			return;
+		}
+		
+		String actual = this.getMd5Checksum();
+		
+		if (this.expectedMd5 != null && !this.expectedMd5.equalsIgnoreCase(actual)) {
+			this.mismatch = new ChecksumMismatchException(this.subject, this.expectedMd5, actual);
+			throw this.mismatch;
+		}
+	}
+	
+	private void checkMismatch() throws ChecksumMismatchException {
+		if (this.mismatch != null) {
+			throw this.mismatch;
+		}
+	}
+
+}
@@ -0,0 +1,303 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+
+/**
+ * Downloads a file by splitting it in byte ranges which are fetched concurrently
+ * over several connections. Ranges can either be written directly into a
+ * {@link java.nio.channels.FileChannel} as they arrive or be reassembled in order
+ * into an {@link java.io.InputStream}.
+ * 
+ * Concurrency is bounded by the parallelism level. When reassembling into a stream, memory usage
+ * is bounded to (parallelism + 1) * rangeSize bytes: the ranges being fetched plus the one being consumed.
+ * 
+ * Each download uses its own worker threads, which are released when the download completes or the
+ * stream is closed. Callers of {@link #openStream()} must close the stream, even if they don't read it to the end,
+ * since the ranges scheduled ahead keep being fetched until then. Workers time out once idle, so the threads of a
+ * stream dropped without being closed are eventually released
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class RangedDownload {
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int IDLE_WORKER_TIMEOUT_SECONDS = 5;
+	
+	private final HttpRequestFactory requestFactory;
+	private final String downloadUrl;
+	private final long size;
+	private final int rangeSize;
+	private final int parallelism;
+	
+	public RangedDownload(HttpRequestFactory requestFactory, String downloadUrl, long size, int rangeSize, int parallelism) {
+		if (rangeSize <= 0) {
+			throw new IllegalArgumentException("rangeSize has to be greater than zero");
+		}
+		
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism has to be greater than zero");
+		}
+		
+		this.requestFactory = requestFactory;
+		this.downloadUrl = downloadUrl;
+		this.size = size;
+		this.rangeSize = rangeSize;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Fetches all ranges concurrently and writes each one at its position in the given channel
+	 * 
+	 * @param channel the channel to write into. It is not closed by this method
+	 * @return the amount of bytes written
+	 * @throws IOException in case of connection issues
+	 */
+	public long downloadTo(final FileChannel channel) throws IOException {
+		ExecutorService executor = this.newExecutor();
+		List<Future<Long>> futures = new ArrayList<Future<Long>>();
+		
+		try {
+			for (long start = 0; start < this.size; start += this.rangeSize) {
+				final long from = start;
+				final long to = this.rangeEnd(start);
+				
+				futures.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws Exception {
+						return writeRange(channel, from, to);
+					}
+				}));
+			}
+			
+			long written = 0;
+			for (Future<Long> future : futures) {
+				written += this.await(future);
+			}
+			
+			return written;
+		} finally {
+			for (Future<Long> future : futures) {
+				future.cancel(true);
+			}
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Returns a stream which serves the file's content in order while ranges
+	 * ahead of the current one are being fetched in the background. The stream must be closed once no longer
+	 * needed, which cancels the ranges still being fetched
+	 * 
+	 * @return an instance of {@link java.io.InputStream}
+	 */
+	public InputStream openStream() {
+		return new OrderedRangeInputStream();
+	}
+	
+	private long writeRange(FileChannel channel, long from, long to) throws IOException {
+		InputStream in = this.openRange(from, to);
+		try {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			long position = from;
+			int read;
+			
+			while ((read = in.read(bytes)) != -1) {
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+			}
+			
+			if (position != to + 1) {
+				throw new IOException(String.format("Range %d-%d ended prematurely at byte %d", from, to, position));
+			}
+			
+			return position - from;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+	
+	private byte[] readRange(long from, long to) throws IOException {
+		InputStream in = this.openRange(from, to);
+		try {
+			byte[] bytes = new byte[(int) (to - from + 1)];
+			int offset = 0;
+			int read;
+			
+			while (offset < bytes.length && (read = in.read(bytes, offset, bytes.length - offset)) != -1) {
+				offset += read;
+			}
+			
+			if (offset != bytes.length) {
+				throw new IOException(String.format("Range %d-%d ended prematurely at byte %d", from, to, from + offset));
+			}
+			
+			return bytes;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+	
+	private InputStream openRange(long from, long to) throws IOException {
+		HttpRequest request = this.requestFactory.buildGetRequest(new GenericUrl(this.downloadUrl));
+		request.getHeaders().setRange(String.format("bytes=%d-%d", from, to));
+		
+		HttpResponse response = request.execute();
+		
+		if (response.getStatusCode() != 206 && !(from == 0 && to == this.size - 1)) {
+			response.disconnect();
+			throw new IOException("Server does not support range requests for " + this.downloadUrl);
+		}
+		
+		return response.getContent();
+	}
+	
+	private long rangeEnd(long start) {
+		return Math.min(start + this.rangeSize, this.size) - 1;
+	}
+	
+	private ExecutorService newExecutor() {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, IDLE_WORKER_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("google-drive-ranged-download"));
+		executor.allowCoreThreadTimeOut(true);
+		
+		return executor;
+	}
+	
+	private <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for range download");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			
+			throw new IOException("Range download failed: " + e.getCause().getMessage());
+		}
+	}
+	
+	private class OrderedRangeInputStream extends InputStream {
+		
+		private final ExecutorService executor = newExecutor();
+		private final LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+		private long nextRange = 0;
+		private byte[] current = new byte[0];
+		private int position = 0;
+		
+		private OrderedRangeInputStream() {
+			for (int i = 0; i < parallelism; i++) {
+				this.scheduleNext();
+			}
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if (!this.ensureAvailable()) {
+				return -1;
+			}
+			
+			return this.current[this.position++] & 0xff;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			
+			if (!this.ensureAvailable()) {
+				return -1;
+			}
+			
+			int count = Math.min(len, this.current.length - this.position);
+			System.arraycopy(this.current, this.position, b, off, count);
+			this.position += count;
+			
+			return count;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return this.current.length - this.position;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			for (Future<byte[]> future : this.pending) {
+				future.cancel(true);
+			}
+			
+			this.pending.clear();
+			this.executor.shutdownNow();
+		}
+		
+		private boolean ensureAvailable() throws IOException {
+			while (this.position >= this.current.length) {
+				if (this.pending.isEmpty()) {
+					this.executor.shutdown();
+					return false;
+				}
+				
+				this.current = await(this.pending.removeFirst());
+				this.position = 0;
+				this.scheduleNext();
+			}
+			
+			return true;
+		}
+		
+		private void scheduleNext() {
+			if (this.nextRange >= size) {
+				return;
+			}
+			
+			final long from = this.nextRange;
+			final long to = rangeEnd(from);
+			this.nextRange = to + 1;
+			
+			this.pending.addLast(this.executor.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws Exception {
+					return readRange(from, to);
+				}
+			}));
+		}
+	}
+
+}
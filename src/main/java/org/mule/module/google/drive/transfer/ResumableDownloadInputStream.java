@@ -0,0 +1,180 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.module.google.drive.throttle.BackoffPolicy;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+
+/**
+ * {@link java.io.InputStream} over a file's content which keeps track of how many bytes
+ * it has delivered. If the underlying connection fails, the download is transparently
+ * reissued with a <code>Range: bytes=N-</code> header so that it continues where it left off.
+ * Every failed reconnection counts as an attempt, and attempts are spaced by a
+ * {@link org.mule.module.google.drive.throttle.BackoffPolicy}.
+ * 
+ * Once the end of the stream is reached, the amount of delivered bytes is verified against
+ * the expected size, if any. Wrap it into a {@link org.mule.module.google.drive.transfer.Md5VerifyingInputStream}
+ * to also verify the content's checksum.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ResumableDownloadInputStream extends InputStream {
+	
+	private static final Log logger = LogFactory.getLog(ResumableDownloadInputStream.class);
+	
+	private final HttpRequestFactory requestFactory;
+	private final String downloadUrl;
+	private final Long expectedSize;
+	private final BackoffPolicy resumePolicy;
+	
+	private InputStream delegate;
+	private long delivered = 0;
+	private int attempts = 0;
+	private boolean verified = false;
+	
+	/**
+	 * @param requestFactory the factory used to issue the requests
+	 * @param downloadUrl the url to download
+	 * @param expectedSize the expected amount of bytes or <code>null</code> if unknown
+	 * @param resumePolicy how many times to reissue the request before giving up and how long to wait between attempts
+	 * @throws IOException if the initial request fails
+	 */
+	public ResumableDownloadInputStream(HttpRequestFactory requestFactory, String downloadUrl, Long expectedSize, BackoffPolicy resumePolicy) throws IOException {
+		this.requestFactory = requestFactory;
+		this.downloadUrl = downloadUrl;
+		this.expectedSize = expectedSize;
+		this.resumePolicy = resumePolicy;
+		
+		this.delegate = this.open();
+	}
+	
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = this.read(b, 0, 1);
+		
+		return read == -1 ? -1 : b[0] & 0xff;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		while (true) {
+			int read;
+			
+			try {
+				read = this.delegate.read(b, off, len);
+			} catch (IOException e) {
+				this.resume(e);
+				continue;
+			}
+			
+			if (read == -1) {
+				if (this.expectedSize != null && this.delivered < this.expectedSize) {
+					this.resume(new IOException(String.format("Connection closed after %d of %d bytes", this.delivered, this.expectedSize)));
+					continue;
+				}
+				
+				this.verify();
+				return -1;
+			}
+			
+			this.delivered += read;
+			
+			return read;
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.delegate.close();
+	}
+	
+	/**
+	 * @return the amount of bytes delivered so far
+	 */
+	public long getDelivered() {
+		return delivered;
+	}
+	
+	/**
+	 * Reopens the download from the first byte not yet delivered. Each failed reconnection consumes an attempt,
+	 * and the last failure is rethrown once no attempts are left
+	 */
+	private void resume(IOException cause) throws IOException {
+		IOUtils.closeQuietly(this.delegate);
+		
+		while (true) {
+			if (this.attempts >= this.resumePolicy.getMaxRetries()) {
+				throw cause;
+			}
+			
+			long delay = this.resumePolicy.delayMillis(this.attempts++);
+			logger.warn(String.format("Download of %s interrupted at byte %d, resuming in %d ms (attempt %d of %d)",
+					this.downloadUrl, this.delivered, delay, this.attempts, this.resumePolicy.getMaxRetries()), cause);
+			
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while resuming download of " + this.downloadUrl);
+			}
+			
+			try {
+				this.delegate = this.open();
+				return;
+			} catch (IOException e) {
+				cause = e;
+			}
+		}
+	}
+	
+	private InputStream open() throws IOException {
+		HttpRequest request = this.requestFactory.buildGetRequest(new GenericUrl(this.downloadUrl));
+		
+		if (this.delivered > 0) {
+			request.getHeaders().setRange("bytes=" + this.delivered + "-");
+		}
+		
+		HttpResponse response = request.execute();
+		
+		if (this.delivered > 0 && response.getStatusCode() != 206) {
+			response.disconnect();
+			throw new IOException("Server does not support range requests for " + this.downloadUrl);
+		}
+		
+		return response.getContent();
+	}
+	
+	private void verify() throws IOException {
+		if (this.verified) {
+			return;
+		}
+		
+		this.verified = true;
+		
+		if (this.expectedSize != null && this.delivered != this.expectedSize) {
+			throw new IOException(String.format("Expected %d bytes but %d were received for %s", this.expectedSize, this.delivered, this.downloadUrl));
+		}
+	}
+
+}
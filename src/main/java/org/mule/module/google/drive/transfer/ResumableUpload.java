@@ -0,0 +1,341 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.module.google.drive.model.stream.FileStreamContent;
+import org.mule.module.google.drive.throttle.BackoffPolicy;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.EmptyContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+/**
+ * Uploads a file using the resumable upload protocol. Content is sent in chunks of
+ * a fixed size and the upload session uri is kept for the lifetime of this object,
+ * so that if a chunk fails because of a connection issue the server is asked for
+ * the last acknowledged byte and the upload continues from that point instead of
+ * starting over. Failed chunks and status requests are retried with backoff, up to the
+ * policy's maximum amount of consecutive retries.
+ * 
+ * Instances are not thread safe and are meant to be used for one upload only.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class ResumableUpload {
+	
+	private static final Log logger = LogFactory.getLog(ResumableUpload.class);
+	
+	/**
+	 * Chunk sizes must be multiples of this value
+	 */
+	public static final int MINIMUM_CHUNK_SIZE = 256 * 1024;
+	
+	private static final int RESUME_INCOMPLETE = 308;
+	
+	private final Drive client;
+	private final HttpRequestFactory requestFactory;
+	private final JsonObjectParser parser;
+	private final int chunkSize;
+	private final BackoffPolicy resumePolicy;
+	private TransferProgressListener progressListener;
+	
+	private String sessionUri;
+	private long acknowledged = 0;
+	private int failures = 0;
+	
+	/**
+	 * @param client the client to upload with
+	 * @param chunkSize the size of each chunk. It is rounded down to a multiple of {@link #MINIMUM_CHUNK_SIZE}
+	 * @param resumePolicy the delays between resume attempts. Its maximum amount of retries is how many consecutive
+	 * 			times a failed chunk is resumed before giving up
+	 */
+	public ResumableUpload(Drive client, int chunkSize, BackoffPolicy resumePolicy) {
+		this.client = client;
+		this.requestFactory = client.getRequestFactory();
+		this.parser = new JsonObjectParser(client.getJsonFactory());
+		this.chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (chunkSize / MINIMUM_CHUNK_SIZE) * MINIMUM_CHUNK_SIZE);
+		this.resumePolicy = resumePolicy;
+	}
+	
+	/**
+	 * Performs the upload reading the content from a stream. Since the stream cannot be rewound,
+	 * each chunk is held in memory until the server acknowledges it
+	 * 
+	 * @param metadata the file's metadata
+	 * @param mimeType the mimeType for the file being uploaded
+	 * @param in the stream holding the file's content. It will be consumed but not closed
+	 * @param length the content's length or -1 if unknown
+	 * @param parameters additional query parameters for the upload request (ocr, convert, etc)
+	 * @return the newly created file
+	 * @throws IOException in case of connection issues or if the upload could not be resumed
+	 */
+	public File upload(File metadata, String mimeType, InputStream in, long length, Map<String, Object> parameters) throws IOException {
+		this.initiate(metadata, mimeType, length, parameters);
+		
+		byte[] buffer = new byte[this.chunkSize];
+		long bufferStart = 0;
+		int bufferLength = 0;
+		boolean eof = false;
+		
+		while (true) {
+			while (!eof && bufferLength < buffer.length) {
+				int read = in.read(buffer, bufferLength, buffer.length - bufferLength);
+				if (read == -1) {
+					eof = true;
+				} else {
+					bufferLength += read;
+				}
+			}
+			
+			long total = eof ? bufferStart + bufferLength : length;
+			int offset = this.bufferOffset(bufferStart, bufferLength);
+			int count = bufferLength - offset;
+			
+			File result = this.send(new ByteArrayContent(mimeType, buffer, offset, count), count, total);
+			
+			this.notifyProgress(metadata, total);
+			
+			if (result != null) {
+				return result;
+			}
+			
+			// discard acknowledged bytes so that the buffer only holds what is still pending
+			int consumed = this.bufferOffset(bufferStart, bufferLength);
+			System.arraycopy(buffer, consumed, buffer, 0, bufferLength - consumed);
+			bufferLength -= consumed;
+			bufferStart = this.acknowledged;
+		}
+	}
+	
+	/**
+	 * Performs the upload reading the content from a file. Each chunk is read from its
+	 * position in the file when sent, so nothing is buffered between chunks
+	 * 
+	 * @param metadata the file's metadata
+	 * @param content the file holding the content to upload
+	 * @param parameters additional query parameters for the upload request (ocr, convert, etc)
+	 * @return the newly created file
+	 * @throws IOException in case of connection issues or if the upload could not be resumed
+	 */
+	public File upload(File metadata, FileStreamContent content, Map<String, Object> parameters) throws IOException {
+		long total = content.getLength();
+		this.initiate(metadata, content.getType(), total, parameters);
+		
+		while (true) {
+			long count = Math.min(this.chunkSize, total - this.acknowledged);
+			File result = this.send(content.region(this.acknowledged, count), count, total);
+			
+			this.notifyProgress(metadata, total);
+			
+			if (result != null) {
+				return result;
+			}
+		}
+	}
+	
+	/**
+	 * Processes the response to a chunk or status request. 
+	 * 
+	 * @return the uploaded file if the upload is complete or <code>null</code> if more chunks are pending 
+	 */
+	private File complete(HttpResponse response, long total) throws IOException {
+		try {
+			if (response.isSuccessStatusCode()) {
+				this.acknowledged = total;
+				return response.parseAs(File.class);
+			} else if (response.getStatusCode() == RESUME_INCOMPLETE) {
+				this.acknowledged = this.parseRange(response);
+				return null;
+			} else if (response.getStatusCode() >= 500) {
+				throw new IOException("Server failed to process chunk with status " + response.getStatusCode());
+			}
+			
+			throw new HttpResponseException(response);
+		} finally {
+			response.disconnect();
+		}
+	}
+	
+	/**
+	 * Sends a chunk. If it fails because of a connection issue, the server is asked for the last acknowledged byte so that
+	 * the next chunk starts from there. The status request is retried with backoff as well, since the connection may still be down
+	 * 
+	 * @return the uploaded file if the upload is complete or <code>null</code> if more chunks are pending
+	 */
+	private File send(HttpContent content, long count, long total) throws IOException {
+		try {
+			File result = this.complete(this.put(content, this.contentRange(count, total)), total);
+			this.failures = 0;
+			
+			return result;
+		} catch (HttpResponseException e) {
+			throw e;
+		} catch (IOException e) {
+			IOException failure = e;
+			
+			while (true) {
+				this.backOff(failure);
+				
+				try {
+					return this.complete(this.queryStatus(total), total);
+				} catch (HttpResponseException statusError) {
+					throw statusError;
+				} catch (IOException statusError) {
+					failure = statusError;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Waits before the next resume attempt, or rethrows the failure if no attempts are left
+	 */
+	private void backOff(IOException failure) throws IOException {
+		if (this.failures >= this.resumePolicy.getMaxRetries()) {
+			throw failure;
+		}
+		
+		long delay = this.resumePolicy.delayMillis(this.failures++);
+		logger.warn(String.format("Chunk upload failed at byte %d, resuming in %d ms (attempt %d of %d)",
+				this.acknowledged, delay, this.failures, this.resumePolicy.getMaxRetries()), failure);
+		
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while resuming upload");
+		}
+	}
+	
+	/**
+	 * Returns the position in the buffer of the first byte not yet acknowledged. Since the content stream cannot be rewound,
+	 * the upload fails if the server acknowledged fewer bytes than the ones already discarded from the buffer
+	 */
+	private int bufferOffset(long bufferStart, int bufferLength) throws IOException {
+		if (this.acknowledged < bufferStart || this.acknowledged > bufferStart + bufferLength) {
+			throw new IOException(String.format("Cannot resume upload: server acknowledged %d bytes but only bytes %d to %d are still buffered",
+					this.acknowledged, bufferStart, bufferStart + bufferLength));
+		}
+		
+		return (int) (this.acknowledged - bufferStart);
+	}
+	
+	private void initiate(File metadata, String mimeType, long length, Map<String, Object> parameters) throws IOException {
+		GenericUrl url = new GenericUrl(this.client.getRootUrl() + "upload/" + this.client.getServicePath() + "files");
+		url.put("uploadType", "resumable");
+		
+		if (parameters != null) {
+			url.putAll(parameters);
+		}
+		
+		HttpRequest request = this.requestFactory.buildPostRequest(url, new JsonHttpContent(this.client.getJsonFactory(), metadata));
+		request.getHeaders().set("X-Upload-Content-Type", mimeType);
+		
+		if (length >= 0) {
+			request.getHeaders().set("X-Upload-Content-Length", Long.toString(length));
+		}
+		
+		HttpResponse response = request.execute();
+		try {
+			this.sessionUri = response.getHeaders().getLocation();
+		} finally {
+			response.disconnect();
+		}
+		
+		if (StringUtils.isBlank(this.sessionUri)) {
+			throw new IOException("Server did not return an upload session uri");
+		}
+	}
+	
+	private String contentRange(long count, long total) {
+		String totalValue = total >= 0 ? Long.toString(total) : "*";
+		
+		return count > 0
+				? String.format("bytes %d-%d/%s", this.acknowledged, this.acknowledged + count - 1, totalValue)
+				: "bytes */" + totalValue;
+	}
+	
+	private HttpResponse queryStatus(long total) throws IOException {
+		return this.put(new EmptyContent(), "bytes */" + (total >= 0 ? Long.toString(total) : "*"));
+	}
+	
+	private HttpResponse put(HttpContent content, String contentRange) throws IOException {
+		HttpRequest request = this.requestFactory.buildPutRequest(new GenericUrl(this.sessionUri), content);
+		request.getHeaders().setContentRange(contentRange);
+		request.setParser(this.parser);
+		request.setThrowExceptionOnExecuteError(false);
+		
+		// failures are resumed by querying the committed offset, never by resending the chunk blindly
+		request.setNumberOfRetries(0);
+		
+		return request.execute();
+	}
+	
+	/**
+	 * Parses a range header of the form bytes=0-1234 and returns the next expected byte
+	 */
+	private long parseRange(HttpResponse response) {
+		String range = response.getHeaders().getRange();
+		
+		if (StringUtils.isBlank(range)) {
+			return 0;
+		}
+		
+		return Long.parseLong(range.substring(range.indexOf('-') + 1).trim()) + 1;
+	}
+	
+	private void notifyProgress(File metadata, long total) {
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("Uploaded %d of %s bytes for file %s", this.acknowledged, total >= 0 ? Long.toString(total) : "unknown", metadata.getTitle()));
+		}
+		
+		if (this.progressListener != null) {
+			this.progressListener.onProgress(metadata.getTitle(), this.acknowledged, total);
+		}
+	}
+	
+	/**
+	 * @return the upload session uri or <code>null</code> if the upload has not been initiated
+	 */
+	public String getSessionUri() {
+		return sessionUri;
+	}
+	
+	/**
+	 * @return the amount of bytes acknowledged by the server so far
+	 */
+	public long getAcknowledged() {
+		return acknowledged;
+	}
+
+	public void setProgressListener(TransferProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+}
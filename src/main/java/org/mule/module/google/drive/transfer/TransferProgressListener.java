@@ -0,0 +1,30 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.google.drive.transfer;
+
+/**
+ * Callback notified each time a chunk of a transfer is acknowledged
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public interface TransferProgressListener {
+
+	/**
+	 * Invoked after each acknowledged chunk
+	 * 
+	 * @param name the title of the file being transferred
+	 * @param bytesTransferred the amount of bytes acknowledged so far
+	 * @param totalBytes the total size of the transfer or -1 if unknown
+	 */
+	public void onProgress(String name, long bytesTransferred, long totalBytes);
+	
+}
@@ -0,0 +1,328 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.walk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mule.api.MuleException;
+import org.mule.module.google.drive.model.File;
+import org.apache.commons.lang.StringUtils;
+import org.mule.streaming.PagingDelegate;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.FileList;
+
+/**
+ * {@link org.mule.streaming.PagingDelegate} which walks a folder hierarchy, listing the children
+ * of several folders concurrently on a bounded pool. Discovered files are handed to the consumer
+ * as they are found, so results start flowing before the whole tree has been crawled. The amount of
+ * discovered files waiting to be consumed is bounded; once reached, workers wait for the consumer.
+ * 
+ * Folders are always traversed (subject to the depth limit) even if their mime type is filtered out.
+ * Since files can have several parents, each file is returned and each folder traversed only the
+ * first time it is found
+ * 
+ * The walk stops and its threads are released once all files are consumed or the walker is closed. If the consumer
+ * stops taking files for {@link #ABANDON_AFTER_MILLIS} without closing the walker, the walk is considered abandoned
+ * and stopped as well, and further attempts to consume it fail
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class FolderTreeWalker extends PagingDelegate<File> {
+	
+	public static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+	
+	private static final Object END = new Object();
+	private static final int MAX_RESULTS = 1000;
+	private static final long OFFER_TIMEOUT_MILLIS = 1000;
+	private static final int IDLE_WORKER_TIMEOUT_SECONDS = 5;
+	
+	/**
+	 * How long workers wait for the consumer to make room for discovered files before abandoning the walk
+	 */
+	public static final long ABANDON_AFTER_MILLIS = 5 * 60 * 1000;
+	
+	private final Drive client;
+	private final String rootId;
+	private final int maxDepth;
+	private final Collection<String> mimeTypes;
+	private final int parallelism;
+	private final int pageSize;
+	private final String fields;
+	
+	private final BlockingQueue<Object> discovered;
+	private final AtomicInteger pendingFolders = new AtomicInteger(0);
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private final Set<String> visited = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private ThreadPoolExecutor executor;
+	private volatile boolean finished = false;
+	private volatile long lastConsumed;
+	private volatile boolean abandoned = false;
+	
+	/**
+	 * @param client the client to use
+	 * @param rootId the id of the folder to start from
+	 * @param maxDepth how many levels to descend. Children of the root folder are on level 1. A negative value means no limit
+	 * @param mimeTypes if not empty, only files with these mime types are returned
+	 * @param parallelism how many folders to list concurrently
+	 * @param pageSize the maximum amount of files on each page
+	 * @param fields partial response selector for each listing or <code>null</code> to retrieve full resources
+	 */
+	public FolderTreeWalker(Drive client, String rootId, int maxDepth, Collection<String> mimeTypes, int parallelism, int pageSize, String fields) {
+		this.client = client;
+		this.rootId = rootId;
+		this.maxDepth = maxDepth;
+		this.mimeTypes = mimeTypes;
+		this.parallelism = Math.max(1, parallelism);
+		this.pageSize = Math.max(1, pageSize);
+		this.fields = fields != null ? withRequiredFields(fields) : null;
+		this.discovered = new ArrayBlockingQueue<Object>(this.pageSize * this.parallelism);
+	}
+	
+	@Override
+	public List<File> getPage() {
+		if (this.abandoned) {
+			throw new IllegalStateException(String.format("Folder tree walk was abandoned after %d ms without consuming files", ABANDON_AFTER_MILLIS));
+		}
+		
+		if (this.finished) {
+			return null;
+		}
+		
+		this.lastConsumed = System.currentTimeMillis();
+		
+		if (this.executor == null) {
+			this.start();
+		}
+		
+		List<File> page = new ArrayList<File>(this.pageSize);
+		
+		try {
+			Object next = this.take();
+			
+			while (next != null) {
+				if (next == END) {
+					this.stop();
+					break;
+				} else if (next instanceof Throwable) {
+					this.stop();
+					throw new RuntimeException("Could not walk folder tree", (Throwable) next);
+				}
+				
+				page.add((File) next);
+				this.lastConsumed = System.currentTimeMillis();
+				next = page.size() < this.pageSize ? this.discovered.poll() : null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.stop();
+			throw new RuntimeException("Interrupted while walking folder tree", e);
+		}
+		
+		return page.isEmpty() ? null : page;
+	}
+	
+	@Override
+	public int getTotalResults() {
+		return -1;
+	}
+	
+	@Override
+	public void close() throws MuleException {
+		this.stop();
+	}
+	
+	private void start() {
+		this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, IDLE_WORKER_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("google-drive-tree-walker"));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.visited.add(this.rootId);
+		this.submit(this.rootId, 1);
+	}
+	
+	private void stop() {
+		this.finished = true;
+		
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Hands a discovered file or the end marker to the consumer, waiting while the queue is full.
+	 * Gives up once the walker is closed, and abandons the walk if the consumer stopped taking files
+	 * 
+	 * @return whether the item was handed over
+	 */
+	private boolean hand(Object item) throws InterruptedException {
+		while (!this.finished) {
+			if (this.discovered.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+			
+			if (System.currentTimeMillis() - this.lastConsumed > ABANDON_AFTER_MILLIS) {
+				this.abandoned = true;
+				this.stop();
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Waits for the next discovered file, the end marker or a failure on any of the workers
+	 */
+	private Object take() throws InterruptedException {
+		while (true) {
+			Object next = this.discovered.poll(1, TimeUnit.SECONDS);
+			
+			if (next != null) {
+				return next;
+			}
+			
+			Throwable t = this.failure.get();
+			if (t != null) {
+				return t;
+			}
+		}
+	}
+	
+	private void submit(final String folderId, final int depth) {
+		this.pendingFolders.incrementAndGet();
+		
+		this.executor.submit(new Runnable() {
+			
+			@Override
+			public void run() {
+				try {
+					listChildren(folderId, depth);
+					
+					if (pendingFolders.decrementAndGet() == 0) {
+						hand(END);
+					}
+				} catch (InterruptedException e) {
+					// walker was closed
+				} catch (Exception e) {
+					failure.compareAndSet(null, e);
+					executor.shutdownNow();
+				}
+			}
+		});
+	}
+	
+	private void listChildren(String folderId, int depth) throws IOException, InterruptedException {
+		String pageToken = null;
+		
+		do {
+			FileList response = this.client.files().list()
+					.setQ(String.format("'%s' in parents and trashed = false", folderId))
+					.setMaxResults(MAX_RESULTS)
+					.setPageToken(pageToken)
+					.setFields(this.fields)
+					.execute();
+			
+			if (response.getItems() != null) {
+				for (com.google.api.services.drive.model.File child : response.getItems()) {
+					if (!this.visited.add(child.getId())) {
+						continue;
+					}
+					
+					if (FOLDER_MIME_TYPE.equals(child.getMimeType()) && (this.maxDepth < 0 || depth < this.maxDepth)) {
+						this.submit(child.getId(), depth + 1);
+					}
+					
+					if ((this.mimeTypes == null || this.mimeTypes.isEmpty() || this.mimeTypes.contains(child.getMimeType()))
+							&& !this.hand(new File(child))) {
+						return;
+					}
+				}
+			}
+			
+			pageToken = response.getNextPageToken();
+			
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+		} while (pageToken != null);
+	}
+
+	/**
+	 * Adds the attributes the walker relies on to a partial response selector, merging them
+	 * into the selector's own items sub-selection if it has one
+	 */
+	private static String withRequiredFields(String fields) {
+		Set<String> selectors = new LinkedHashSet<String>();
+		Set<String> items = new LinkedHashSet<String>();
+		boolean allItems = false;
+		
+		selectors.add("nextPageToken");
+		items.add("id");
+		items.add("mimeType");
+		
+		for (String selector : splitSelectors(fields)) {
+			if (selector.equals("items")) {
+				allItems = true;
+			} else if (selector.startsWith("items(") && selector.endsWith(")")) {
+				items.addAll(splitSelectors(selector.substring("items(".length(), selector.length() - 1)));
+			} else if (selector.startsWith("items/")) {
+				items.add(selector.substring("items/".length()));
+			} else if (selector.length() > 0) {
+				selectors.add(selector);
+			}
+		}
+		
+		selectors.add(allItems ? "items" : "items(" + StringUtils.join(items, ',') + ")");
+		
+		return StringUtils.join(selectors, ',');
+	}
+	
+	/**
+	 * Splits a selector on the commas which are not nested inside parentheses
+	 */
+	private static List<String> splitSelectors(String fields) {
+		List<String> selectors = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		
+		for (int i = 0; i < fields.length(); i++) {
+			char c = fields.charAt(i);
+			
+			if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == ',' && depth == 0) {
+				selectors.add(fields.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		
+		selectors.add(fields.substring(start).trim());
+		
+		return selectors;
+	}
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.watch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded http endpoint which receives the push notifications of
+ * {@link org.mule.module.google.drive.watch.WatchChannel}s.
+ * 
+ * Notifications are only accepted if they carry the id of a registered channel along with its token.
+ * Since notifications don't carry the changes themselves, they're coalesced into a single pending
+ * signal: consumers wait on {@link #await(long)} and then fetch whatever changed since their last fetch.
+ * 
+ * Each receiver needs its own port. Starting a receiver on a port already taken by another one fails with an
+ * {@link java.lang.IllegalStateException}. Port 0 binds to a free port, which {@link #getPort()} returns once started.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class NotificationReceiver {
+	
+	private static final Log logger = LogFactory.getLog(NotificationReceiver.class);
+	
+	private static final String CHANNEL_ID_HEADER = "X-Goog-Channel-ID";
+	private static final String CHANNEL_TOKEN_HEADER = "X-Goog-Channel-Token";
+	private static final String RESOURCE_STATE_HEADER = "X-Goog-Resource-State";
+	private static final String SYNC_STATE = "sync";
+	
+	private static final Set<Integer> portsInUse = new HashSet<Integer>();
+	
+	private final String host;
+	private final int port;
+	private final String path;
+	private final String token;
+	private final Set<String> channelIds = new CopyOnWriteArraySet<String>();
+	private final BlockingQueue<Object> signal = new ArrayBlockingQueue<Object>(1);
+	
+	private HttpServer server;
+	private ExecutorService executor;
+	private boolean portReserved = false;
+	
+	/**
+	 * @param host the host to bind to
+	 * @param port the port to listen on
+	 * @param path the path notifications are posted to
+	 * @param token the token every notification must carry
+	 */
+	public NotificationReceiver(String host, int port, String path, String token) {
+		this.host = host;
+		this.port = port;
+		this.path = path;
+		this.token = token;
+	}
+	
+	/**
+	 * Starts listening for notifications
+	 * 
+	 * @throws IllegalStateException if another receiver is already listening on the same port
+	 * @throws IOException if the port could not be bound
+	 */
+	public synchronized void start() throws IOException {
+		if (this.port != 0) {
+			synchronized (portsInUse) {
+				if (!portsInUse.add(this.port)) {
+					throw new IllegalStateException(String.format(
+							"Port %d is already used by another watch-changes source. Each source needs its own port", this.port));
+				}
+				
+				this.portReserved = true;
+			}
+		}
+		
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(this.host, this.port), 0);
+		} catch (BindException e) {
+			this.releasePort();
+			throw new IOException(String.format("Could not listen for notifications on %s:%d", this.host, this.port), e);
+		} catch (IOException e) {
+			this.releasePort();
+			throw e;
+		}
+		
+		this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("google-drive-notification-receiver"));
+		this.server.setExecutor(this.executor);
+		this.server.createContext(this.path, new HttpHandler() {
+			
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					drain(exchange.getRequestBody());
+					exchange.sendResponseHeaders(receive(exchange), -1);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		
+		this.server.start();
+	}
+	
+	public synchronized void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+		
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+		
+		this.releasePort();
+	}
+	
+	/**
+	 * @return the port the receiver listens on, which is only known after starting it if it was created with port 0
+	 */
+	public synchronized int getPort() {
+		return this.server != null ? this.server.getAddress().getPort() : this.port;
+	}
+	
+	/**
+	 * Accepts notifications for the given channel
+	 */
+	public void register(String channelId) {
+		this.channelIds.add(channelId);
+	}
+	
+	/**
+	 * Stops accepting notifications for the given channel
+	 */
+	public void unregister(String channelId) {
+		this.channelIds.remove(channelId);
+	}
+	
+	/**
+	 * Waits for a notification. All notifications received since the last
+	 * invocation count as one
+	 * 
+	 * @param timeoutMillis how long to wait
+	 * @return whether a notification was received
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean await(long timeoutMillis) throws InterruptedException {
+		return this.signal.poll(Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS) != null;
+	}
+	
+	private void releasePort() {
+		if (this.portReserved) {
+			synchronized (portsInUse) {
+				portsInUse.remove(this.port);
+			}
+			
+			this.portReserved = false;
+		}
+	}
+	
+	private int receive(HttpExchange exchange) {
+		if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+			return 405;
+		}
+		
+		String channelId = exchange.getRequestHeaders().getFirst(CHANNEL_ID_HEADER);
+		String channelToken = exchange.getRequestHeaders().getFirst(CHANNEL_TOKEN_HEADER);
+		
+		if (channelId == null || !this.channelIds.contains(channelId) || !this.token.equals(channelToken)) {
+			logger.warn("Rejected notification for unknown channel " + channelId);
+			return 403;
+		}
+		
+		if (!SYNC_STATE.equals(exchange.getRequestHeaders().getFirst(RESOURCE_STATE_HEADER))) {
+			this.signal.offer(Boolean.TRUE);
+		}
+		
+		return 200;
+	}
+	
+	/**
+	 * Notifications have no meaningful body, but it has to be consumed so that the connection can be reused
+	 */
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		try {
+			while (in.read(buffer) != -1) {
+				// discard
+			}
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.watch;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonObjectParser;
+
+/**
+ * A push notification channel through which Google Drive notifies a web hook about changes
+ * on a resource (the user's change feed or a single file).
+ * 
+ * The version of the Drive client this connector is built with doesn't model the watch API,
+ * so channels are opened and stopped with plain json requests against the API's base url.
+ * This also allows pointing them to a local stand in of the API.
+ * 
+ * @author mariano.gonzalez@mulesoft.com
+ *
+ */
+public class WatchChannel {
+	
+	private final HttpRequestFactory requestFactory;
+	private final JsonFactory jsonFactory;
+	private final String baseUrl;
+	
+	private final String id;
+	private final String token;
+	private String resourceId;
+	private long expiration;
+	
+	private WatchChannel(HttpRequestFactory requestFactory, JsonFactory jsonFactory, String baseUrl, String token) {
+		this.requestFactory = requestFactory;
+		this.jsonFactory = jsonFactory;
+		this.baseUrl = baseUrl;
+		this.id = UUID.randomUUID().toString();
+		this.token = token;
+	}
+	
+	/**
+	 * Opens a new channel
+	 * 
+	 * @param requestFactory the request factory of the user's client
+	 * @param jsonFactory the json factory of the user's client
+	 * @param baseUrl the API's base url, ending with a slash (for example https://www.googleapis.com/drive/v2/)
+	 * @param resource the path of the watched resource relative to the base url: changes or files/{fileId}
+	 * @param address the https url of the web hook that receives the notifications
+	 * @param token a value sent back with each notification to authenticate it
+	 * @param ttlSeconds the requested lifetime of the channel. The server may grant a shorter one
+	 * @return the opened {@link org.mule.module.google.drive.watch.WatchChannel}
+	 * @throws IOException in case of connection issues
+	 */
+	public static WatchChannel open(HttpRequestFactory requestFactory, JsonFactory jsonFactory, String baseUrl,
+			String resource, String address, String token, long ttlSeconds) throws IOException {
+		
+		WatchChannel channel = new WatchChannel(requestFactory, jsonFactory, baseUrl, token);
+		
+		Map<String, Object> body = new HashMap<String, Object>();
+		body.put("id", channel.id);
+		body.put("type", "web_hook");
+		body.put("address", address);
+		body.put("token", token);
+		body.put("expiration", Long.toString(System.currentTimeMillis() + ttlSeconds * 1000L));
+		
+		GenericJson response = channel.post(resource + "/watch", body);
+		
+		channel.resourceId = (String) response.get("resourceId");
+		Object expiration = response.get("expiration");
+		channel.expiration = expiration != null
+				? Long.parseLong(expiration.toString())
+				: System.currentTimeMillis() + ttlSeconds * 1000L;
+		
+		return channel;
+	}
+	
+	/**
+	 * Stops the channel so that no more notifications are sent through it
+	 * 
+	 * @throws IOException in case of connection issues
+	 */
+	public void stop() throws IOException {
+		Map<String, Object> body = new HashMap<String, Object>();
+		body.put("id", this.id);
+		body.put("resourceId", this.resourceId);
+		
+		HttpRequest request = this.requestFactory.buildPostRequest(new GenericUrl(this.baseUrl + "channels/stop"), new JsonHttpContent(this.jsonFactory, body));
+		request.execute().ignore();
+	}
+	
+	private GenericJson post(String path, Map<String, Object> body) throws IOException {
+		HttpRequest request = this.requestFactory.buildPostRequest(new GenericUrl(this.baseUrl + path), new JsonHttpContent(this.jsonFactory, body));
+		request.setParser(new JsonObjectParser(this.jsonFactory));
+		
+		HttpResponse response = request.execute();
+		try {
+			return response.parseAs(GenericJson.class);
+		} finally {
+			response.disconnect();
+		}
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public String getResourceId() {
+		return resourceId;
+	}
+
+	/**
+	 * @return when the channel expires, in milliseconds since the epoch
+	 */
+	public long getExpiration() {
+		return expiration;
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mule.module.google.drive.model.BatchResult;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonError.ErrorInfo;
+
+/**
+ * Checks which failed items of a {@link org.mule.module.google.drive.batch.DriveBatch} are retried and
+ * which results a failed batch request records its error on
+ */
+public class DriveBatchTestCase {
+
+	@Test
+	public void serverErrorsAndExceededQuotasAreRetried() {
+		assertTrue(DriveBatch.isRetryable(error(500, null)));
+		assertTrue(DriveBatch.isRetryable(error(503, null)));
+		assertTrue(DriveBatch.isRetryable(error(429, null)));
+		assertTrue(DriveBatch.isRetryable(error(403, "rateLimitExceeded")));
+		assertTrue(DriveBatch.isRetryable(error(403, "userRateLimitExceeded")));
+	}
+
+	@Test
+	public void clientErrorsAreNotRetried() {
+		assertFalse(DriveBatch.isRetryable(error(400, null)));
+		assertFalse(DriveBatch.isRetryable(error(404, "notFound")));
+		assertFalse(DriveBatch.isRetryable(error(403, "insufficientPermissions")));
+		assertFalse(DriveBatch.isRetryable(error(403, null)));
+	}
+
+	@Test
+	public void failUnresolvedKeepsExistingOutcomes() {
+		BatchResult succeeded = new BatchResult("succeeded");
+		succeeded.setSuccessful(true);
+
+		BatchResult failed = new BatchResult("failed");
+		failed.setErrorCode(404);
+		failed.setErrorMessage("File not found");
+
+		BatchResult unresolved = new BatchResult("unresolved");
+
+		DriveBatch.failUnresolved(Arrays.asList(succeeded, failed, unresolved), 500, "Batch request failed");
+
+		assertTrue(succeeded.isSuccessful());
+		assertNull(succeeded.getErrorMessage());
+
+		assertEquals(Integer.valueOf(404), failed.getErrorCode());
+		assertEquals("File not found", failed.getErrorMessage());
+
+		assertFalse(unresolved.isSuccessful());
+		assertEquals(Integer.valueOf(500), unresolved.getErrorCode());
+		assertEquals("Batch request failed", unresolved.getErrorMessage());
+	}
+
+	@Test
+	public void failUnresolvedAlwaysRecordsMessage() {
+		BatchResult unresolved = new BatchResult("unresolved");
+
+		DriveBatch.failUnresolved(Collections.singletonList(unresolved), null, null);
+
+		assertFalse(unresolved.isSuccessful());
+		assertNull(unresolved.getErrorCode());
+		assertEquals("Unknown error", unresolved.getErrorMessage());
+	}
+
+	private static GoogleJsonError error(int code, String reason) {
+		GoogleJsonError error = new GoogleJsonError();
+		error.setCode(code);
+
+		if (reason != null) {
+			ErrorInfo info = new ErrorInfo();
+			info.setReason(reason);
+			error.setErrors(Collections.singletonList(info));
+		}
+
+		return error;
+	}
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mule.module.google.drive.model.Change;
+
+/**
+ * Checks which changes {@link org.mule.module.google.drive.sync.ChangeCoalescer} retains for each file
+ */
+public class ChangeCoalescerTestCase {
+
+	@Test
+	public void keepsLatestChangePerFile() {
+		Change first = change(1, "a", false);
+		Change other = change(2, "b", false);
+		Change latest = change(3, "a", false);
+
+		List<Change> coalesced = ChangeCoalescer.coalesce(Arrays.asList(first, other, latest));
+
+		assertEquals(2, coalesced.size());
+		assertSame(other, coalesced.get(0));
+		assertSame(latest, coalesced.get(1));
+	}
+
+	@Test
+	public void deletionWinsOverLaterChanges() {
+		Change modified = change(1, "a", false);
+		Change deleted = change(2, "a", true);
+		Change recreated = change(3, "a", false);
+
+		List<Change> coalesced = ChangeCoalescer.coalesce(Arrays.asList(modified, deleted, recreated));
+
+		assertEquals(1, coalesced.size());
+		assertSame(deleted, coalesced.get(0));
+	}
+
+	@Test
+	public void laterDeletionReplacesEarlierDeletion() {
+		Change deleted = change(1, "a", true);
+		Change deletedAgain = change(2, "a", true);
+
+		List<Change> coalesced = ChangeCoalescer.coalesce(Arrays.asList(deleted, deletedAgain));
+
+		assertEquals(1, coalesced.size());
+		assertSame(deletedAgain, coalesced.get(0));
+	}
+
+	@Test
+	public void changesWithoutFileIdAreKept() {
+		Change first = change(1, null, false);
+		Change second = change(2, null, false);
+
+		List<Change> coalesced = ChangeCoalescer.coalesce(Arrays.asList(first, second));
+
+		assertEquals(Arrays.asList(first, second), coalesced);
+	}
+
+	private static Change change(long id, String fileId, boolean deleted) {
+		Change change = new Change();
+		change.setId(id);
+		change.setFileId(fileId);
+		change.setDeleted(deleted);
+
+		return change;
+	}
+
+}
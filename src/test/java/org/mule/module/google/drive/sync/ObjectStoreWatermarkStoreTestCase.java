@@ -0,0 +1,96 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+/**
+ * Stores watermarks in an in memory object store which can be made to fail
+ * between removing a slot and storing the new value
+ */
+public class ObjectStoreWatermarkStoreTestCase {
+
+	private static final String KEY = "changes";
+
+	private FailingObjectStore objectStore;
+	private ObjectStoreWatermarkStore store;
+
+	@Before
+	public void setUp() {
+		this.objectStore = new FailingObjectStore();
+		this.store = new ObjectStoreWatermarkStore(this.objectStore);
+	}
+
+	@Test
+	public void unknownKeyHasNoWatermark() throws IOException {
+		assertNull(this.store.retrieve(KEY));
+	}
+
+	@Test
+	public void alternatesSlots() throws Exception {
+		this.store.store(KEY, 1L);
+		this.store.store(KEY, 2L);
+		assertEquals(1L, this.objectStore.retrieve(KEY + "#0"));
+		assertEquals(2L, this.objectStore.retrieve(KEY + "#1"));
+
+		this.store.store(KEY, 3L);
+		assertEquals(3L, this.objectStore.retrieve(KEY + "#0"));
+		assertEquals(2L, this.objectStore.retrieve(KEY + "#1"));
+		assertEquals(Long.valueOf(3), this.store.retrieve(KEY));
+	}
+
+	@Test
+	public void keepsLatestWatermarkIfStoreFailsAfterRemovingSlot() throws IOException {
+		this.store.store(KEY, 1L);
+		this.store.store(KEY, 2L);
+
+		this.objectStore.failNextStore = true;
+		try {
+			this.store.store(KEY, 3L);
+			fail("store should have failed");
+		} catch (IOException e) {
+			// the older slot was removed but the new value was never written
+		}
+
+		assertEquals(Long.valueOf(2), this.store.retrieve(KEY));
+
+		this.store.store(KEY, 3L);
+		assertEquals(Long.valueOf(3), this.store.retrieve(KEY));
+
+		this.store.store(KEY, 4L);
+		assertEquals(Long.valueOf(4), this.store.retrieve(KEY));
+	}
+
+	private static class FailingObjectStore extends SimpleMemoryObjectStore<Serializable> {
+
+		private boolean failNextStore = false;
+
+		@Override
+		public void store(Serializable key, Serializable value) throws ObjectStoreException {
+			if (this.failNextStore) {
+				this.failNextStore = false;
+				throw new ObjectStoreException(new IOException("Simulated crash while storing " + key));
+			}
+
+			super.store(key, value);
+		}
+	}
+
+}
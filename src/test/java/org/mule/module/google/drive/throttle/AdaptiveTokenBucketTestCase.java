@@ -0,0 +1,87 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.throttle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks how {@link org.mule.module.google.drive.throttle.AdaptiveTokenBucket} adapts its rate
+ */
+public class AdaptiveTokenBucketTestCase {
+
+	private static final double MAX_RATE = 16;
+	private static final double DELTA = 0.0001;
+	private static final long COOLDOWN_MILLIS = 1100;
+
+	@Test
+	public void decreaseHalvesRateOncePerSecond() throws InterruptedException {
+		AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(MAX_RATE);
+
+		bucket.decrease();
+		assertEquals(MAX_RATE / 2, bucket.getRate(), DELTA);
+
+		bucket.decrease();
+		assertEquals("errors within the same second only count once", MAX_RATE / 2, bucket.getRate(), DELTA);
+
+		Thread.sleep(COOLDOWN_MILLIS);
+
+		bucket.decrease();
+		assertEquals(MAX_RATE / 4, bucket.getRate(), DELTA);
+	}
+
+	@Test
+	public void successesRecoverRateAfterCooldown() throws InterruptedException {
+		AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(MAX_RATE);
+		bucket.decrease();
+
+		bucket.increase();
+		assertEquals("rate doesn't grow right after a decrease", MAX_RATE / 2, bucket.getRate(), DELTA);
+
+		Thread.sleep(COOLDOWN_MILLIS);
+
+		double rate = bucket.getRate();
+		bucket.increase();
+		assertEquals(rate + MAX_RATE * AdaptiveTokenBucket.INCREASE_FRACTION / rate, bucket.getRate(), DELTA);
+
+		for (int i = 0; i < 1000; i++) {
+			bucket.increase();
+		}
+
+		assertEquals("rate never exceeds the maximum", MAX_RATE, bucket.getRate(), DELTA);
+	}
+
+	@Test
+	public void rateDoesNotRecoverWithoutSuccesses() throws InterruptedException {
+		AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(MAX_RATE);
+		bucket.decrease();
+
+		Thread.sleep(COOLDOWN_MILLIS);
+		bucket.acquire();
+
+		assertEquals(MAX_RATE / 2, bucket.getRate(), DELTA);
+	}
+
+	@Test
+	public void acquireWaitsForPermits() throws InterruptedException {
+		AdaptiveTokenBucket bucket = new AdaptiveTokenBucket(MAX_RATE);
+
+		long start = System.currentTimeMillis();
+		bucket.acquire((int) MAX_RATE);
+		assertTrue("a full burst is available right away", System.currentTimeMillis() - start < 200);
+
+		start = System.currentTimeMillis();
+		bucket.acquire((int) MAX_RATE / 2);
+		assertTrue("half a second worth of permits takes about half a second", System.currentTimeMillis() - start >= 400);
+	}
+
+}
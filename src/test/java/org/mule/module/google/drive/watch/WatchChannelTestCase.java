@@ -0,0 +1,197 @@
+/**
+ * Mule Google Drive Cloud Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.google.drive.watch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson.JacksonFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Opens and stops channels against a local stand in of the Drive API and posts
+ * notifications to a {@link org.mule.module.google.drive.watch.NotificationReceiver}
+ */
+public class WatchChannelTestCase {
+
+	private static final String TOKEN = "secret";
+	private static final String RESOURCE_ID = "resource-1";
+	private static final long EXPIRATION = 1893456000000L;
+
+	private final JsonFactory jsonFactory = new JacksonFactory();
+	private final HttpRequestFactory requestFactory = new NetHttpTransport().createRequestFactory();
+	private final Map<String, GenericJson> requests = new ConcurrentHashMap<String, GenericJson>();
+
+	private HttpServer api;
+	private String baseUrl;
+	private NotificationReceiver receiver;
+
+	@Before
+	public void setUp() throws IOException {
+		this.api = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+		this.api.createContext("/drive/v2/changes/watch", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				GenericJson request = record("watch", exchange);
+				respond(exchange, 200, String.format("{\"kind\":\"api#channel\",\"id\":\"%s\",\"resourceId\":\"%s\",\"expiration\":\"%d\"}",
+						request.get("id"), RESOURCE_ID, EXPIRATION));
+			}
+		});
+
+		this.api.createContext("/drive/v2/channels/stop", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				record("stop", exchange);
+				respond(exchange, 204, null);
+			}
+		});
+
+		this.api.start();
+		this.baseUrl = "http://localhost:" + this.api.getAddress().getPort() + "/drive/v2/";
+
+		this.receiver = new NotificationReceiver("localhost", 0, "/notifications", TOKEN);
+		this.receiver.start();
+	}
+
+	@After
+	public void tearDown() {
+		this.receiver.stop();
+		this.api.stop(0);
+	}
+
+	@Test
+	public void openNotifyAndStop() throws Exception {
+		String address = "https://example.com/notifications";
+		WatchChannel channel = WatchChannel.open(this.requestFactory, this.jsonFactory, this.baseUrl, "changes", address, TOKEN, 600);
+
+		GenericJson watch = this.requests.get("watch");
+		assertEquals(channel.getId(), watch.get("id"));
+		assertEquals("web_hook", watch.get("type"));
+		assertEquals(address, watch.get("address"));
+		assertEquals(TOKEN, watch.get("token"));
+		assertEquals(RESOURCE_ID, channel.getResourceId());
+		assertEquals(EXPIRATION, channel.getExpiration());
+
+		this.receiver.register(channel.getId());
+
+		assertEquals(200, this.postNotification(channel.getId(), TOKEN, "sync"));
+		assertFalse("sync notifications don't signal changes", this.receiver.await(100));
+
+		assertEquals(200, this.postNotification(channel.getId(), TOKEN, "change"));
+		assertEquals(200, this.postNotification(channel.getId(), TOKEN, "change"));
+		assertTrue(this.receiver.await(1000));
+		assertFalse("notifications are coalesced into a single signal", this.receiver.await(100));
+
+		assertEquals(403, this.postNotification(channel.getId(), "wrong", "change"));
+		assertEquals(403, this.postNotification("unknown", TOKEN, "change"));
+		assertFalse(this.receiver.await(100));
+
+		this.receiver.unregister(channel.getId());
+		channel.stop();
+
+		GenericJson stop = this.requests.get("stop");
+		assertEquals(channel.getId(), stop.get("id"));
+		assertEquals(RESOURCE_ID, stop.get("resourceId"));
+		assertEquals(403, this.postNotification(channel.getId(), TOKEN, "change"));
+	}
+
+	@Test
+	public void receiversCannotSharePorts() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+
+		NotificationReceiver first = new NotificationReceiver("localhost", port, "/first", TOKEN);
+		NotificationReceiver second = new NotificationReceiver("localhost", port, "/second", TOKEN);
+
+		first.start();
+		try {
+			second.start();
+			fail("two receivers were started on the same port");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains(Integer.toString(port)));
+		} finally {
+			first.stop();
+		}
+
+		second.start();
+		second.stop();
+	}
+
+	private int postNotification(String channelId, String token, String state) throws IOException {
+		URL url = new URL("http://localhost:" + this.receiver.getPort() + "/notifications");
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+		try {
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("X-Goog-Channel-ID", channelId);
+			connection.setRequestProperty("X-Goog-Channel-Token", token);
+			connection.setRequestProperty("X-Goog-Resource-State", state);
+			connection.setDoOutput(true);
+			connection.getOutputStream().close();
+
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private GenericJson record(String name, HttpExchange exchange) throws IOException {
+		GenericJson request = this.jsonFactory.fromString(IOUtils.toString(exchange.getRequestBody(), "UTF-8"), GenericJson.class);
+		this.requests.put(name, request);
+
+		return request;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		try {
+			if (body == null) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+
+			byte[] bytes = body.getBytes("UTF-8");
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+
+			OutputStream out = exchange.getResponseBody();
+			out.write(bytes);
+			out.close();
+		} finally {
+			exchange.close();
+		}
+	}
+
+}